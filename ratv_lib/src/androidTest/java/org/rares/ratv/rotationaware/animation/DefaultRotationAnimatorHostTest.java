@@ -0,0 +1,123 @@
+package org.rares.ratv.rotationaware.animation;
+
+import android.animation.ValueAnimator;
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.annotation.UiThreadTest;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.rares.ratv.rotationaware.RotationAwareTextView;
+
+import static org.junit.Assert.*;
+
+/**
+ * Animates specs with constant channels through {@link DefaultRotationAnimatorHost}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DefaultRotationAnimatorHostTest {
+
+    private static AnimationSpec constantMarginsSpec() {
+        return new AnimationSpec.Builder()
+                .rotation(0, -90)
+                .width(400, 100)
+                .height(100, 400)
+                .textColor(0xFF000000, 0xFF000000)
+                .backgroundColor(0xFFFFFFFF, 0xFF303030)
+                .textSize(40, 40)
+                .marginLeft(0, 0)
+                .marginTop(0, 0)
+                .marginRight(0, 0)
+                .marginBottom(0, 0)
+                .build();
+    }
+
+    private static RotationAwareTextView newView() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        FrameLayout parent = new FrameLayout(context);
+        RotationAwareTextView view = new RotationAwareTextView(context);
+        parent.addView(view, new FrameLayout.LayoutParams(400, 100));
+        return view;
+    }
+
+    @Test
+    @UiThreadTest
+    public void configureAnimator_holdsAnimatedChannelsOnly() {
+        AnimationSpec spec = constantMarginsSpec();
+        DefaultRotationAnimatorHost host = new DefaultRotationAnimatorHost(spec);
+
+        ValueAnimator animator = host.configureAnimator(false);
+
+        assertEquals(Integer.bitCount(spec.getProgram().getMask()), animator.getValues().length);
+        assertNull(animator.getAnimatedValue(RotationAware.MARGIN_LEFT));
+    }
+
+    @Test
+    @UiThreadTest
+    public void listenerWithoutProgram_skipsConstantChannels() {
+        RotationAwareTextView view = newView();
+        ViewGroup.MarginLayoutParams params = (ViewGroup.MarginLayoutParams) view.getLayoutParams();
+        params.leftMargin = 5;
+        DefaultRotationAnimatorHost host = new DefaultRotationAnimatorHost(constantMarginsSpec());
+
+        ValueAnimator animator = host.configureAnimator(false);
+        animator.setDuration(100);
+        animator.addUpdateListener(new RotationAwareUpdateListener(view));
+        animator.setCurrentPlayTime(50);
+        animator.setCurrentPlayTime(100);
+
+        params = (ViewGroup.MarginLayoutParams) view.getLayoutParams();
+        assertEquals(100, params.width);
+        assertEquals(400, params.height);
+        assertEquals(5, params.leftMargin);
+        assertEquals(0xFF303030, view.getBackgroundColor());
+    }
+
+    @Test
+    @UiThreadTest
+    public void listenerWithProgram_appliesConstantChannels() {
+        RotationAwareTextView view = newView();
+        ViewGroup.MarginLayoutParams params = (ViewGroup.MarginLayoutParams) view.getLayoutParams();
+        params.leftMargin = 5;
+        DefaultRotationAnimatorHost host = new DefaultRotationAnimatorHost(constantMarginsSpec());
+
+        ValueAnimator animator = host.configureAnimator(true);
+        animator.setDuration(100);
+        RotationAwareUpdateListener listener = host.createUpdateListener(view);
+        animator.addUpdateListener(listener);
+        animator.setCurrentPlayTime(100);
+
+        params = (ViewGroup.MarginLayoutParams) view.getLayoutParams();
+        assertEquals(400, params.width);
+        assertEquals(100, params.height);
+        assertEquals(0, params.leftMargin);
+        assertEquals(40, (int) view.getTextPaint().getTextSize());
+    }
+
+    @Test
+    @UiThreadTest
+    public void textSizeOnly_rebuildsTextLayout() {
+        RotationAwareTextView view = newView();
+        view.setText("Text");
+        view.setTextSize(20);
+        view.requestTextLayout(400);
+        int startHeight = view.getLayoutHeight();
+        AnimationSpec spec = new AnimationSpec.Builder()
+                .width(400, 400)
+                .height(100, 100)
+                .textSize(20, 40)
+                .build();
+        DefaultRotationAnimatorHost host = new DefaultRotationAnimatorHost(spec);
+
+        ValueAnimator animator = host.configureAnimator(false);
+        animator.setDuration(100);
+        animator.addUpdateListener(host.createUpdateListener(view));
+        animator.setCurrentPlayTime(100);
+
+        assertEquals(40, view.getTextSize());
+        assertTrue(view.getLayoutHeight() > startHeight);
+    }
+}
@@ -0,0 +1,59 @@
+package org.rares.ratv.rotationaware.animation;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.annotation.UiThreadTest;
+import android.support.test.runner.AndroidJUnit4;
+import android.widget.FrameLayout;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.rares.ratv.rotationaware.RotationAwareTextView;
+
+import static org.junit.Assert.*;
+
+/**
+ * Rebinding recycled views through {@link RotationStateBinder}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RotationStateBinderTest {
+
+    private static final AnimationSpec SPEC = new AnimationSpec.Builder()
+            .rotation(0, -90)
+            .width(400, 100)
+            .height(100, 400)
+            .backgroundColor(0xFFFFFFFF, 0xFF303030)
+            .textColor(0xFF000000, 0xFF000000)
+            .textSize(40, 40)
+            .build()
+            .intern();
+
+    private static RotationAwareTextView newView() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        FrameLayout parent = new FrameLayout(context);
+        RotationAwareTextView view = new RotationAwareTextView(context);
+        parent.addView(view, new FrameLayout.LayoutParams(400, 100));
+        return view;
+    }
+
+    @Test
+    @UiThreadTest
+    public void rebind_toFreshPosition_showsOriginalState() {
+        RotationAwareTextView view = newView();
+        RotationStateBinder binder = new RotationStateBinder(300);
+
+        binder.bind(view, 0, SPEC);
+        binder.toggle(view, 0);
+        view.getAnimatorHost().animator.end();
+        assertEquals(100, view.getLayoutParams().width);
+        assertEquals(0xFF303030, view.getBackgroundColor());
+
+        binder.bind(view, 1, SPEC);
+
+        assertEquals(400, view.getLayoutParams().width);
+        assertEquals(100, view.getLayoutParams().height);
+        assertEquals(0xFFFFFFFF, view.getBackgroundColor());
+        assertFalse(binder.isTarget(1));
+        assertTrue(binder.isTarget(0));
+    }
+}
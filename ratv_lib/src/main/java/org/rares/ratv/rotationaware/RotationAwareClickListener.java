@@ -1,11 +1,9 @@
 package org.rares.ratv.rotationaware;
 
-import android.animation.ValueAnimator;
 import android.view.View;
 
 import org.rares.ratv.rotationaware.animation.DefaultRotationAnimatorHost;
 import org.rares.ratv.rotationaware.animation.RotationAnimatorHost;
-import org.rares.ratv.rotationaware.animation.RotationAwareUpdateListener;
 
 /**
  * Default click listener that starts the animation on click.
@@ -17,6 +15,17 @@ public class RotationAwareClickListener implements View.OnClickListener {
     private boolean reverse = false;
     private RotationAnimatorHost animatorHost = null;
 
+    public RotationAwareClickListener() {
+    }
+
+    /**
+     * @param animatorHost the host that runs the animation.
+     *                     If null, a {@link DefaultRotationAnimatorHost} is created on first click.
+     */
+    public RotationAwareClickListener(RotationAnimatorHost animatorHost) {
+        this.animatorHost = animatorHost;
+    }
+
     @Override
     public void onClick(View v) {
         if (v instanceof RotationAwareTextView) {
@@ -25,11 +34,7 @@ public class RotationAwareClickListener implements View.OnClickListener {
             if (animatorHost == null) {
                 animatorHost = new DefaultRotationAnimatorHost(view.gatherAnimationData());
             }
-            ValueAnimator animator = animatorHost
-                    .configureAnimator(reverse)
-                    .setDuration(reverse ? 250 : 200);
-            animator.addUpdateListener(new RotationAwareUpdateListener(view));
-            animator.start();
+            animatorHost.animate(view, reverse, reverse ? 250 : 200);
 
             reverse = !reverse;
         }
@@ -3,10 +3,15 @@ package org.rares.ratv.rotationaware;
 import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
+import android.graphics.BlurMaskFilter;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.PointF;
 import android.graphics.Typeface;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
 import android.support.annotation.Nullable;
 import android.support.annotation.StyleableRes;
 import android.text.BoringLayout;
@@ -20,6 +25,21 @@ import android.view.ViewGroup;
 
 import org.rares.ratv.R;
 import org.rares.ratv.rotationaware.animation.AnimationDTO;
+import org.rares.ratv.rotationaware.animation.AnimationProgram;
+import org.rares.ratv.rotationaware.animation.AnimationSpec;
+import org.rares.ratv.rotationaware.animation.RotationAnimatorHost;
+import org.rares.ratv.rotationaware.animation.RotationFrame;
+import org.rares.ratv.rotationaware.render.BitmapPool;
+import org.rares.ratv.rotationaware.render.ShadowCache;
+import org.rares.ratv.rotationaware.text.GlyphAdvances;
+import org.rares.ratv.rotationaware.text.RotatedBoundsSolver;
+import org.rares.ratv.rotationaware.text.TextLayoutBuilder;
+import org.rares.ratv.rotationaware.text.TextMetricsCache;
+import org.rares.ratv.rotationaware.text.TextPaintPool;
+import org.rares.ratv.rotationaware.text.TextPrecomputer;
+import org.rares.ratv.rotationaware.text.TickerText;
+
+import java.util.concurrent.Future;
 
 
 /**
@@ -97,17 +117,45 @@ public class RotationAwareTextView extends View {
 
     private int minTextSize = 20;   //
 
+    //    opt-in: text sizes (and wrapped target dimensions) are solved from the rotated text bounds
+    private boolean autoFit = false;
+    private int fittedOriginalTextSize;
+    private int fittedTargetTextSize;
+    private int fittedTargetWidth;
+    private int fittedTargetHeight;
+
     private String text = "";
 
+    //    ticker mode: the text is drawn from a mutable buffer
+    private boolean tickerMode = false;
+    private final TickerText ticker = new TickerText();
+    private final GlyphAdvances glyphAdvances = new GlyphAdvances();
+    private final BoringLayout.Metrics tickerMetrics = new BoringLayout.Metrics();
+    private BoringLayout tickerLayout;
+
+    private Future<?> pendingText;
+    private int textGeneration = 0;
+    //    measured by setTextAsync, used until the text or the paint changes
+    private TextMetricsCache.Entry precomputedMetrics;
+    private int paintGeneration = 0;
+
     private float pseudoRotation = 0;
 
     boolean clearOnDetach = false;
 
+    private RotationAnimatorHost animatorHost;
+    private boolean finishOnResume = false;
+
     private Layout mLayout;
+    private final TextLayoutBuilder layoutBuilder = new TextLayoutBuilder();
 
     private Paint p = new Paint();
     private TextPaint textPaint = new TextPaint(p);
 
+    //    opt-in: the paint is shared with views of the same style until it has to change
+    private boolean sharedPaintEnabled = false;
+    private boolean paintShared = false;
+
     private int defaultBackgroundColor = 0x88FFFFFF;
     private int defaultTextColor = 0xFF000000;
     private int backgroundColor = defaultBackgroundColor;
@@ -137,6 +185,18 @@ public class RotationAwareTextView extends View {
 
     private int shadowRadius = 0;
     private int shadowColor = 0;
+    private boolean shadowCacheEnabled = false;
+
+    //    shadow currently set on the paint
+    private int paintShadowRadius = 0;
+    private int paintShadowColor = 0;
+
+    //    pending work of a beginBatch / commitBatch pair
+    private int batchDepth = 0;
+    private boolean batchInvalidate = false;
+    private boolean batchBackground = false;
+    private boolean batchShadow = false;
+    private boolean batchLayout = false;
 
     private View.OnClickListener clickListener = null;
 
@@ -153,6 +213,50 @@ public class RotationAwareTextView extends View {
     private final PointF cc = new PointF();
     private final PointF lc = new PointF();
 
+    //    what changed since the text was last measured / laid out
+    private static final int DIRTY_TEXT = 1;
+    private static final int DIRTY_PAINT = 1 << 1;
+    private static final int DIRTY_WIDTH = 1 << 2;
+    private static final int DIRTY_GRAVITY = 1 << 3;
+    private static final int DIRTY_ELLIPSIZE = 1 << 4;
+
+    private int measureDirty = DIRTY_TEXT | DIRTY_PAINT;
+    private int layoutDirty = DIRTY_TEXT | DIRTY_PAINT;
+
+    //    paint state the dirty flags refer to
+    private TextPaint lastPaint;
+    private float lastPaintTextSize;
+    private float lastPaintTextScaleX;
+    private Typeface lastPaintTypeface;
+    private int lastPaintFlags;
+
+    private float textWidth;
+    private int textHeight;
+    //    false if the text needs a StaticLayout, which may wrap it into more lines
+    private boolean textBoring = true;
+    private int layoutWidth = -1;
+    private int skippedLayoutCount = 0;
+
+    //    while the text size is animated with a canvas scale, the layout is built at textScaleSize
+    private boolean textScaling = false;
+    private int textScaleSize;
+    private float textScale = 1;
+
+    //    alpha masks of the text and its shadow, drawn instead of the layout while animating
+    private boolean snapshotWhileAnimating = false;
+    private Bitmap textSnapshot;
+    private Bitmap shadowSnapshot;
+    private int snapshotPadding;
+    private int snapshotTextSize;
+    private int snapshotLayoutWidth;
+    private int snapshotLayoutHeight;
+    private final Canvas snapshotCanvas = new Canvas();
+    private final Paint snapshotPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    //    scale applied by setTransformBounds, undone for the text in onDraw
+    private float boundsScaleX = 1;
+    private float boundsScaleY = 1;
+
 
     public RotationAwareTextView(Context context) {
         super(context);
@@ -177,6 +281,8 @@ public class RotationAwareTextView extends View {
      * @param attrs   collection of xml-defined attributes
      */
     private void init(Context context, AttributeSet attrs) {
+        long start = System.nanoTime();
+        boolean cached = false;
 
         setBackgroundColor(defaultBackgroundColor);
         setTextColor(defaultTextColor);
@@ -187,61 +293,143 @@ public class RotationAwareTextView extends View {
 
         if (attrs != null) {
 
-            int[] systemAttrs = {
-                    android.R.attr.layout_width,
-                    android.R.attr.layout_height,
-            };
-
-            @StyleableRes int index = 0; // hmm...
-            TypedArray a = context.obtainStyledAttributes(attrs, systemAttrs);
-
-            originalWidth = a.getLayoutDimension(index++, originalWidth);
-            originalHeight = a.getLayoutDimension(index, originalHeight);
-
-            a.recycle();
-
-            a = context.obtainStyledAttributes(attrs, R.styleable.RotationAwareTextView);
-
-            setTargetWidth(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_target_width, getTargetWidth()));
-            setTargetHeight(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_target_height, getTargetHeight()));
-
-            setTargetRotation(a.getInt(R.styleable.RotationAwareTextView_target_rotation, getTargetRotation()));
-            setOriginalRotation(a.getInt(R.styleable.RotationAwareTextView_original_rotation, getOriginalRotation()));
-
-            setBackgroundColor(a.getColor(R.styleable.RotationAwareTextView_background_color, defaultBackgroundColor));
-            setTargetBackgroundColor(a.getColor(R.styleable.RotationAwareTextView_target_background_color, targetBackgroundColor));
-
-            setTextColor(a.getColor(R.styleable.RotationAwareTextView_text_color, textPaint.getColor()));
-            setOriginalTextColor(a.getColor(R.styleable.RotationAwareTextView_original_text_color, textPaint.getColor()));
-            setTargetTextColor(a.getColor(R.styleable.RotationAwareTextView_target_text_color, targetTextColor));
-
-            setOriginalTextSize(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_text_size, minTextSize));
-            setTargetTextSize(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_target_text_size, minTextSize));
-
-            setOriginalMarginLeft(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_original_margin_left, originalMarginLeft));
-            setOriginalMarginTop(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_original_margin_top, originalMarginTop));
-            setOriginalMarginRight(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_original_margin_right, originalMarginRight));
-            setOriginalMarginBottom(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_original_margin_bottom, originalMarginBottom));
-
-            setTargetMarginLeft(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_target_margin_left, originalMarginLeft));
-            setTargetMarginTop(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_target_margin_top, originalMarginTop));
-            setTargetMarginRight(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_target_margin_right, originalMarginRight));
-            setTargetMarginBottom(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_target_margin_bottom, originalMarginBottom));
-
-            setOriginalShadowRadius(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_original_shadow_radius, originalShadowRadius));
-            setTargetShadowRadius(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_target_shadow_radius, targetShadowRadius));
-
-            setOriginalShadowColor(a.getColor(R.styleable.RotationAwareTextView_original_shadow_color, originalShadowColor));
-            setTargetShadowColor(a.getColor(R.styleable.RotationAwareTextView_target_shadow_color, targetShadowColor));
-
-            a.recycle();
+            String key = StyledAttributesCache.keyOf(attrs);
+            int[] state = StyledAttributesCache.get(context.getTheme(), key);
+            if (state != null) {
+                applyStyledState(state);
+                cached = true;
+            } else {
+                readStyledAttributes(context, attrs);
+                StyledAttributesCache.put(context.getTheme(), key, captureStyledState());
+            }
 
             setTextSize(getOriginalTextSize());
             pseudoRotation = originalRotation;
 
         }
+        StyledAttributesCache.recordInflation(System.nanoTime() - start, cached);
     }
 
+    /**
+     * Resolves the xml-defined attributes and applies them through the setters.
+     */
+    private void readStyledAttributes(Context context, AttributeSet attrs) {
+        int[] systemAttrs = {
+                android.R.attr.layout_width,
+                android.R.attr.layout_height,
+        };
+
+        @StyleableRes int index = 0; // hmm...
+        TypedArray a = context.obtainStyledAttributes(attrs, systemAttrs);
+
+        originalWidth = a.getLayoutDimension(index++, originalWidth);
+        originalHeight = a.getLayoutDimension(index, originalHeight);
+
+        a.recycle();
+
+        a = context.obtainStyledAttributes(attrs, R.styleable.RotationAwareTextView);
+
+        setTargetWidth(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_target_width, getTargetWidth()));
+        setTargetHeight(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_target_height, getTargetHeight()));
+
+        setTargetRotation(a.getInt(R.styleable.RotationAwareTextView_target_rotation, getTargetRotation()));
+        setOriginalRotation(a.getInt(R.styleable.RotationAwareTextView_original_rotation, getOriginalRotation()));
+
+        setBackgroundColor(a.getColor(R.styleable.RotationAwareTextView_background_color, defaultBackgroundColor));
+        setTargetBackgroundColor(a.getColor(R.styleable.RotationAwareTextView_target_background_color, targetBackgroundColor));
+
+        setTextColor(a.getColor(R.styleable.RotationAwareTextView_text_color, textPaint.getColor()));
+        setOriginalTextColor(a.getColor(R.styleable.RotationAwareTextView_original_text_color, textPaint.getColor()));
+        setTargetTextColor(a.getColor(R.styleable.RotationAwareTextView_target_text_color, targetTextColor));
+
+        setOriginalTextSize(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_text_size, minTextSize));
+        setTargetTextSize(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_target_text_size, minTextSize));
+
+        setOriginalMarginLeft(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_original_margin_left, originalMarginLeft));
+        setOriginalMarginTop(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_original_margin_top, originalMarginTop));
+        setOriginalMarginRight(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_original_margin_right, originalMarginRight));
+        setOriginalMarginBottom(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_original_margin_bottom, originalMarginBottom));
+
+        setTargetMarginLeft(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_target_margin_left, originalMarginLeft));
+        setTargetMarginTop(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_target_margin_top, originalMarginTop));
+        setTargetMarginRight(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_target_margin_right, originalMarginRight));
+        setTargetMarginBottom(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_target_margin_bottom, originalMarginBottom));
+
+        setOriginalShadowRadius(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_original_shadow_radius, originalShadowRadius));
+        setTargetShadowRadius(a.getDimensionPixelSize(R.styleable.RotationAwareTextView_target_shadow_radius, targetShadowRadius));
+
+        setOriginalShadowColor(a.getColor(R.styleable.RotationAwareTextView_original_shadow_color, originalShadowColor));
+        setTargetShadowColor(a.getColor(R.styleable.RotationAwareTextView_target_shadow_color, targetShadowColor));
+
+        a.recycle();
+    }
+
+    /**
+     * @return the values read from styled attributes, in the
+     * order expected by {@link #applyStyledState(int[])}.
+     */
+    private int[] captureStyledState() {
+        int[] state = new int[25];
+        int index = 0;
+        state[index++] = originalWidth;
+        state[index++] = originalHeight;
+        state[index++] = targetWidth;
+        state[index++] = targetHeight;
+        state[index++] = targetRotation;
+        state[index++] = originalRotation;
+        state[index++] = backgroundColor;
+        state[index++] = targetBackgroundColor;
+        state[index++] = textPaint.getColor();
+        state[index++] = originalTextColor;
+        state[index++] = targetTextColor;
+        state[index++] = originalTextSize;
+        state[index++] = targetTextSize;
+        state[index++] = originalMarginLeft;
+        state[index++] = originalMarginTop;
+        state[index++] = originalMarginRight;
+        state[index++] = originalMarginBottom;
+        state[index++] = targetMarginLeft;
+        state[index++] = targetMarginTop;
+        state[index++] = targetMarginRight;
+        state[index++] = targetMarginBottom;
+        state[index++] = originalShadowRadius;
+        state[index++] = targetShadowRadius;
+        state[index++] = originalShadowColor;
+        state[index] = targetShadowColor;
+        return state;
+    }
+
+    /**
+     * Copies a state block captured by {@link #captureStyledState()}.
+     */
+    private void applyStyledState(int[] state) {
+        int index = 0;
+        originalWidth = state[index++];
+        originalHeight = state[index++];
+        targetWidth = state[index++];
+        targetHeight = state[index++];
+        targetRotation = state[index++];
+        originalRotation = state[index++];
+        setBackgroundColor(state[index++]);
+        targetBackgroundColor = state[index++];
+        textPaint.setColor(state[index++]);
+        originalTextColor = state[index++];
+        targetTextColor = state[index++];
+        originalTextSize = state[index++];
+        targetTextSize = state[index++];
+        originalMarginLeft = state[index++];
+        originalMarginTop = state[index++];
+        originalMarginRight = state[index++];
+        originalMarginBottom = state[index++];
+        targetMarginLeft = state[index++];
+        targetMarginTop = state[index++];
+        targetMarginRight = state[index++];
+        targetMarginBottom = state[index++];
+        originalShadowRadius = state[index++];
+        targetShadowRadius = state[index++];
+        originalShadowColor = state[index++];
+        targetShadowColor = state[index];
+    }
 
     /**
      * Replaces original measure code to set original width and original height, so that animation could run properly. <br />
@@ -258,25 +446,55 @@ public class RotationAwareTextView extends View {
         int sizeW = MeasureSpec.getSize(widthMeasureSpec);
         int sizeH = MeasureSpec.getSize(heightMeasureSpec);
 
+        checkPaint();
+        if (measureDirty != 0 && tickerMode) {
+            textWidth = glyphAdvances.measure(ticker, textPaint);
+            textHeight = (int) (textPaint.getTextSize() * 1.25);
+            measureDirty = 0;
+        }
+        if (measureDirty != 0) {
+            TextMetricsCache.Entry textMetrics = getTextMetrics();
+            textWidth = textMetrics.width;
+            // single lines keep their original height
+            textHeight = (int) Math.max(textPaint.getTextSize() * 1.25, textMetrics.lines * textMetrics.lineHeight);
+            textBoring = textMetrics.boring != null;
+            measureDirty = 0;
+        }
+
+        // rounded up, so the widest line is not wrapped at the measured width
+        int contentWidth = (int) Math.ceil(textWidth);
+        int contentHeight = textHeight;
+        if (!tickerMode && !textBoring) {
+            // soft wrapped lines are only known once the text is laid out at its final width
+            int wrapWidth = widthMode == MeasureSpec.EXACTLY ? sizeW
+                    : widthMode == MeasureSpec.AT_MOST ? Math.min(contentWidth, sizeW)
+                    : contentWidth;
+            if (mLayout == null || layoutDirty != 0 || layoutWidth != wrapWidth) {
+                // reused by onLayout, unless the final width differs
+                createLayout(wrapWidth);
+            }
+            contentHeight = Math.max(textHeight, mLayout.getHeight());
+        }
+
         if (originalWidth == ViewGroup.LayoutParams.MATCH_PARENT) {
             originalWidth = sizeW;
         }
         if (originalWidth == ViewGroup.LayoutParams.WRAP_CONTENT) {
-            originalWidth = (int) textPaint.measureText(text);
+            originalWidth = contentWidth;
         }
         if (originalHeight == ViewGroup.LayoutParams.MATCH_PARENT) {
             originalHeight = sizeH;
         }
         if (originalHeight == ViewGroup.LayoutParams.WRAP_CONTENT) {
-            originalHeight = (int) (textPaint.getTextSize() * 1.25);
+            originalHeight = contentHeight;
         }
 
         if (widthMode == MeasureSpec.AT_MOST) {
-            sizeW = Math.min((int) textPaint.measureText(text), sizeW);
+            sizeW = Math.min(contentWidth, sizeW);
         }
 
         if (heightMode == MeasureSpec.AT_MOST) {
-            sizeH = (int) Math.min((int) textPaint.getTextSize() * 1.25, sizeH);
+            sizeH = Math.min(contentHeight, sizeH);
         }
 
         setMeasuredDimension(sizeW, sizeH);
@@ -284,16 +502,70 @@ public class RotationAwareTextView extends View {
 
     @Override
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
-        createLayout(right - left);
+        int width = right - left;
+        checkPaint();
+        if (width != layoutWidth) {
+            layoutDirty |= DIRTY_WIDTH;
+        }
+        if (layoutDirty == 0 && mLayout != null) {
+            skippedLayoutCount++;
+            return;
+        }
+        createLayout(width);
     }
 
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        updateAnimationPause();
+    }
+
     @Override
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
+        if (animatorHost != null) {
+            animatorHost.pause();
+        }
+        cancelPendingText();
+        endSnapshot();
         clear();
     }
 
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateAnimationPause();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateAnimationPause();
+    }
+
+    /**
+     * Pauses the bound animation while the view can not be seen,
+     * and resumes or finishes it once it can.
+     */
+    private void updateAnimationPause() {
+        if (animatorHost == null) {
+            return;
+        }
+        boolean visible = getWindowToken() != null
+                && getWindowVisibility() == VISIBLE
+                && isShown();
+        if (!visible) {
+            animatorHost.pause();
+        } else if (animatorHost.isPaused()) {
+            if (finishOnResume) {
+                animatorHost.finish();
+            } else {
+                animatorHost.resume();
+            }
+        }
+    }
+
     /**
      * The place where the magic happens. <br />
      * The canvas is rotated by current rotation value. <br />
@@ -315,14 +587,48 @@ public class RotationAwareTextView extends View {
         lc.y = mLayout.getHeight() / 2;
 
 //        drawMiddle(canvas, true);
+        if ((boundsScaleX != 1 || boundsScaleY != 1) && boundsScaleX != 0 && boundsScaleY != 0) {
+            canvas.scale(1 / boundsScaleX, 1 / boundsScaleY, cc.x, cc.y);
+        }
         canvas.rotate(pseudoRotation, cc.x, cc.y);
         canvas.save();
-        canvas.translate(cc.x - lc.x, cc.y - lc.y);
-        mLayout.draw(canvas);
+        if (textSnapshot != null) {
+            drawSnapshot(canvas);
+        } else {
+            if (textScale != 1) {
+                canvas.scale(textScale, textScale, cc.x, cc.y);
+            }
+            canvas.translate(cc.x - lc.x, cc.y - lc.y);
+            if (shadowCacheEnabled) {
+                ShadowCache.getInstance().draw(canvas, mLayout, shadowRadius, shadowColor);
+            }
+            mLayout.draw(canvas);
+        }
 //        drawMiddle(canvas, false);
         canvas.restore();
     }
 
+    /**
+     * Draws the snapshot taken by {@link #beginSnapshot()},
+     * tinted with the current text and shadow colors and
+     * scaled to the current text size.
+     */
+    private void drawSnapshot(Canvas canvas) {
+        float scale = (float) textSize / snapshotTextSize;
+        if (scale != 1) {
+            canvas.scale(scale, scale, cc.x, cc.y);
+        }
+        canvas.translate(
+                cc.x - snapshotLayoutWidth / 2F - snapshotPadding,
+                cc.y - snapshotLayoutHeight / 2F - snapshotPadding);
+        if (shadowSnapshot != null) {
+            snapshotPaint.setColor(shadowColor);
+            canvas.drawBitmap(shadowSnapshot, 0, 0, snapshotPaint);
+        }
+        snapshotPaint.setColor(textPaint.getColor());
+        canvas.drawBitmap(textSnapshot, 0, 0, snapshotPaint);
+    }
+
     private void drawMiddle(Canvas canvas, boolean forCanvas) {
         Paint paint = new Paint();
         paint.setStrokeWidth(2);
@@ -365,18 +671,19 @@ public class RotationAwareTextView extends View {
     public AnimationDTO gatherAnimationData() {
         AnimationDTO animationData = new AnimationDTO();
 
+        solveFit();
         animationData.minRotation = getOriginalRotation();
         animationData.maxRotation = getTargetRotation();
         animationData.minWidth = getOriginalWidth();
-        animationData.maxWidth = getTargetWidth();
+        animationData.maxWidth = fittedTargetWidth;
         animationData.minHeight = getOriginalHeight();
-        animationData.maxHeight = getTargetHeight();
+        animationData.maxHeight = fittedTargetHeight;
         animationData.minTextColor = getTextPaint().getColor();
         animationData.maxTextColor = getTargetTextColor();
         animationData.minBackgroundColor = getBackgroundColor();
         animationData.maxBackgroundColor = getTargetBackgroundColor();
-        animationData.minTextSize = getOriginalTextSize();
-        animationData.maxTextSize = getTargetTextSize();
+        animationData.minTextSize = fittedOriginalTextSize;
+        animationData.maxTextSize = fittedTargetTextSize;
 
         animationData.minMarginLeft = getOriginalMarginLeft();
         animationData.minMarginTop = getOriginalMarginTop();
@@ -394,6 +701,90 @@ public class RotationAwareTextView extends View {
         return animationData;
     }
 
+    /**
+     * @return the shared, immutable animation spec
+     * holding the cached values. Views with identical
+     * values get the same instance.
+     */
+    public AnimationSpec gatherAnimationSpec() {
+        solveFit();
+        return new AnimationSpec.Builder()
+                .rotation(getOriginalRotation(), getTargetRotation())
+                .width(getOriginalWidth(), fittedTargetWidth)
+                .height(getOriginalHeight(), fittedTargetHeight)
+                .textColor(getTextPaint().getColor(), getTargetTextColor())
+                .backgroundColor(getBackgroundColor(), getTargetBackgroundColor())
+                .textSize(fittedOriginalTextSize, fittedTargetTextSize)
+                .marginLeft(getOriginalMarginLeft(), getTargetMarginLeft())
+                .marginTop(getOriginalMarginTop(), getTargetMarginTop())
+                .marginRight(getOriginalMarginRight(), getTargetMarginRight())
+                .marginBottom(getOriginalMarginBottom(), getTargetMarginBottom())
+                .shadowColor(originalShadowColor, targetShadowColor)
+                .shadowRadius(originalShadowRadius, targetShadowRadius)
+                .build()
+                .intern();
+    }
+
+    /**
+     * Opt-in auto fit, used by {@link #gatherAnimationData()} and {@link #gatherAnimationSpec()}.
+     * The text size of each state becomes the largest one, up to the original text size,
+     * at which the text rotated to that state's angle fits in that state's box;
+     * the configured target text size is ignored. <br />
+     * A target width or height below zero (e.g. {@link ViewGroup.LayoutParams#WRAP_CONTENT})
+     * leaves that side unbounded, and is replaced with the size of the rotated text.
+     *
+     * @param autoFit true to enable, false to disable
+     */
+    public void setAutoFit(boolean autoFit) {
+        this.autoFit = autoFit;
+    }
+
+    public boolean isAutoFit() {
+        return autoFit;
+    }
+
+    /**
+     * Solves the largest text size, between the minimum and the original text size,
+     * at which the text, rotated by the given angle, fits in the given box.
+     * Results are memoized by {@link RotatedBoundsSolver}.
+     *
+     * @param angle     rotation, in degrees
+     * @param boxWidth  available width, in pixels; unbounded if below zero
+     * @param boxHeight available height, in pixels; unbounded if below zero
+     * @return the text size, and the size of the rotated text at that size
+     */
+    public RotatedBoundsSolver.Result fitTextSize(float angle, int boxWidth, int boxHeight) {
+        return RotatedBoundsSolver.getInstance().solve(getText(), textPaint, angle,
+                boxWidth < 0 ? Integer.MAX_VALUE : boxWidth,
+                boxHeight < 0 ? Integer.MAX_VALUE : boxHeight,
+                minTextSize, Math.max(minTextSize, originalTextSize));
+    }
+
+    /**
+     * Fills the fitted* fields, with the configured values unless auto fit is enabled.
+     */
+    private void solveFit() {
+        fittedOriginalTextSize = getOriginalTextSize();
+        fittedTargetTextSize = getTargetTextSize();
+        fittedTargetWidth = getTargetWidth();
+        fittedTargetHeight = getTargetHeight();
+        if (!autoFit) {
+            return;
+        }
+        // not resolved before the first measure pass
+        if (originalWidth >= 0 && originalHeight >= 0) {
+            fittedOriginalTextSize = fitTextSize(originalRotation, originalWidth, originalHeight).textSize;
+        }
+        RotatedBoundsSolver.Result target = fitTextSize(targetRotation, targetWidth, targetHeight);
+        fittedTargetTextSize = target.textSize;
+        if (targetWidth < 0) {
+            fittedTargetWidth = target.boundsWidth;
+        }
+        if (targetHeight < 0) {
+            fittedTargetHeight = target.boundsHeight;
+        }
+    }
+
     /**
      * Resets the view rotation, width and height.
      */
@@ -405,6 +796,35 @@ public class RotationAwareTextView extends View {
         setLayoutParams(lp);
     }
 
+    /**
+     * Draws the view as if it had a different size and position,
+     * without touching its layout params. <br />
+     * The background follows the scale, the text is kept undistorted.
+     * Scaling is done from the top left corner.
+     *
+     * @param scaleX       horizontal scale, relative to the laid out width
+     * @param scaleY       vertical scale, relative to the laid out height
+     * @param translationX horizontal offset, in pixels
+     * @param translationY vertical offset, in pixels
+     */
+    public void setTransformBounds(float scaleX, float scaleY, float translationX, float translationY) {
+        boundsScaleX = scaleX;
+        boundsScaleY = scaleY;
+        setPivotX(0);
+        setPivotY(0);
+        setScaleX(scaleX);
+        setScaleY(scaleY);
+        setTranslationX(translationX);
+        setTranslationY(translationY);
+    }
+
+    /**
+     * Removes the transform set by {@link #setTransformBounds(float, float, float, float)}.
+     */
+    public void clearTransformBounds() {
+        setTransformBounds(1, 1, 0, 0);
+    }
+
     /**
      * This view can not be rotated in the normal android way,
      * only its text is going to be rotated.<br />
@@ -427,7 +847,11 @@ public class RotationAwareTextView extends View {
      */
     @Override
     public final void setRotation(float rotation) {
+        if (pseudoRotation == rotation) {
+            return;
+        }
         pseudoRotation = rotation;
+        invalidateBatched();
     }
 
     /**
@@ -452,25 +876,163 @@ public class RotationAwareTextView extends View {
     }
 
     /**
-     * @return the drawn text.
+     * @return the drawn text; in ticker mode, a copy of the ticker content.
      */
     public String getText() {
-        return text;
+        return tickerMode ? ticker.toString() : text;
     }
 
     /**
-     * Sets the text to be drawn.
+     * Sets the text to be drawn. Leaves ticker mode.
      *
      * @param txt text to be drawn.
      */
     public void setText(String txt) {
-        if (getText().equals(txt)) {
+        cancelPendingText();
+        if (!tickerMode && text.equals(txt)) {
             return;
         }
+        tickerMode = false;
         this.text = txt;
+        markDirty(DIRTY_TEXT);
+        requestLayout();
         invalidate();
     }
 
+    /**
+     * Ticker mode: sets the text from a character array, for text that
+     * changes many times a second. No string is created. <br />
+     * The characters are copied into a buffer the layout draws from;
+     * while the text keeps its width (e.g. digits of a font with tabular figures)
+     * the layout is kept as it is and the view is only invalidated;
+     * a change of width requests a layout, so wrapping views resize.
+     * Widths are summed from cached per glyph advances. Text that is
+     * not boring (several lines, right to left) is not supported in this mode.
+     *
+     * @param chars  the characters to draw
+     * @param offset index of the first character
+     * @param length number of characters
+     */
+    public void setTickerText(char[] chars, int offset, int length) {
+        if (ticker.set(chars, offset, length) || !tickerMode) {
+            onTickerChanged();
+        }
+    }
+
+    /**
+     * Ticker mode: draws the decimal representation of the value.
+     *
+     * @param value the number to draw
+     * @see #setTickerText(char[], int, int)
+     */
+    public void setTickerValue(long value) {
+        if (ticker.set(value) || !tickerMode) {
+            onTickerChanged();
+        }
+    }
+
+    /**
+     * @return true after a ticker update, until the next {@link #setText(String)}
+     */
+    public boolean isTickerMode() {
+        return tickerMode;
+    }
+
+    private void onTickerChanged() {
+        cancelPendingText();
+        if (!tickerMode) {
+            tickerMode = true;
+            markDirty(DIRTY_TEXT);
+        }
+        checkPaint();
+        float width = glyphAdvances.measure(ticker, textPaint);
+        if (width != textWidth) {
+            // e.g. 99 to 100, a wrapping view has to grow; the layout pass rebuilds the text layout
+            textWidth = width;
+            markDirty(DIRTY_TEXT);
+            requestLayout();
+        } else if (layoutDirty != 0 && mLayout != null && layoutWidth >= 0) {
+            // the view keeps its size, only the text layout is updated
+            createLayout(layoutWidth);
+        }
+        invalidateBatched();
+    }
+
+    private void createTickerLayout(int width) {
+        if ((layoutDirty & DIRTY_PAINT) != 0 || tickerLayout == null) {
+            // refreshes the font metrics; null if the text is not boring
+            if (BoringLayout.isBoring(ticker, textPaint, tickerMetrics) == null) {
+                tickerLayout = null;
+                mLayout = layoutBuilder.build(
+                        ticker.toString(),
+                        textPaint,
+                        width,
+                        getAlignmentFromGravity(gravity),
+                        ellipsize ? truncateAt : null,
+                        TextMetricsCache.measure(ticker, textPaint));
+                return;
+            }
+        }
+        tickerMetrics.width = (int) Math.ceil(textWidth);
+        if (tickerLayout == null) {
+            tickerLayout = BoringLayout.make(ticker, textPaint, width, getAlignmentFromGravity(gravity),
+                    0F, 0F, tickerMetrics, true);
+        } else {
+            tickerLayout = tickerLayout.replaceOrMake(ticker, textPaint, width, getAlignmentFromGravity(gravity),
+                    0F, 0F, tickerMetrics, true);
+        }
+        mLayout = tickerLayout;
+    }
+
+    /**
+     * Measures the text on a background thread and sets it once measured;
+     * the view keeps the measurements, so measuring and laying it out
+     * on the UI thread does not measure again, unless the paint changes. <br />
+     * A later call to this method or to {@link #setText(String)} cancels
+     * the pending text; so does detaching the view.
+     *
+     * @param txt text to be drawn.
+     */
+    public void setTextAsync(final String txt) {
+        cancelPendingText();
+        if (!tickerMode && text.equals(txt)) {
+            return;
+        }
+        final int generation = textGeneration;
+        checkPaint();
+        final int measuredPaint = paintGeneration;
+        pendingText = TextPrecomputer.getInstance().precompute(txt, textPaint, new TextPrecomputer.Callback() {
+            @Override
+            public void onPrecomputed(CharSequence text, TextMetricsCache.Entry entry) {
+                if (generation != textGeneration) {
+                    return;
+                }
+                pendingText = null;
+                checkPaint();
+                setText(txt);
+                if (measuredPaint == paintGeneration) {
+                    // kept, as the shared cache may have evicted it by the time the view is measured
+                    precomputedMetrics = entry;
+                }
+            }
+        });
+    }
+
+    /**
+     * @return true while a text set with {@link #setTextAsync(String)} is being measured
+     */
+    public boolean hasPendingText() {
+        return pendingText != null;
+    }
+
+    private void cancelPendingText() {
+        textGeneration++;
+        if (pendingText != null) {
+            pendingText.cancel(false);
+            pendingText = null;
+        }
+    }
+
     /**
      * @return the paint object used for text drawing.
      */
@@ -484,18 +1046,101 @@ public class RotationAwareTextView extends View {
      * @param textPaint paint object used for text drawing.
      */
     public void setTextPaint(TextPaint textPaint) {
+        if (paintShared) {
+            TextPaintPool.getInstance().release(this.textPaint);
+            paintShared = false;
+        }
         this.textPaint = textPaint;
+        // the new paint may carry any shadow, let the next setShadowLayer() apply ours
+        paintShadowRadius = -1;
+        markDirty(DIRTY_PAINT);
         invalidate();
     }
 
+    /**
+     * Opt-in paint sharing: views with the same text style (color, size, typeface,
+     * flags and shadow, see {@link TextPaintPool}) draw with one pooled paint;
+     * paints with shaders or other effects are not shared. <br />
+     * The paint is copied before it is first changed, e.g. when color, size or
+     * shadow are animated, and shared again when {@link #sharePaint()} is called,
+     * which the update listeners do when an animation ends.
+     * While shared, do not modify the paint returned by {@link #getTextPaint()}.
+     *
+     * @param sharedPaintEnabled true to enable, false to disable
+     */
+    public void setSharedPaintEnabled(boolean sharedPaintEnabled) {
+        this.sharedPaintEnabled = sharedPaintEnabled;
+        if (sharedPaintEnabled) {
+            sharePaint();
+        } else {
+            mutablePaint();
+        }
+    }
+
+    public boolean isSharedPaintEnabled() {
+        return sharedPaintEnabled;
+    }
+
+    /**
+     * @return true if the view currently draws with a pooled paint
+     */
+    public boolean isPaintShared() {
+        return paintShared;
+    }
+
+    /**
+     * Switches to the pooled paint for the current style.
+     * Does nothing unless paint sharing is enabled.
+     */
+    public void sharePaint() {
+        if (!sharedPaintEnabled || paintShared || textPaint == null || !TextPaintPool.canShare(textPaint)) {
+            return;
+        }
+        if (paintShadowRadius < 0) {
+            applyShadowLayer();
+        }
+        textPaint = TextPaintPool.getInstance().acquire(textPaint, paintShadowRadius, paintShadowColor);
+        paintShared = true;
+        onPaintReplaced();
+    }
+
+    /**
+     * @return the paint, copied first if it is shared
+     */
+    private TextPaint mutablePaint() {
+        if (paintShared) {
+            TextPaint shared = textPaint;
+            textPaint = new TextPaint(shared);
+            paintShared = false;
+            TextPaintPool.getInstance().release(shared);
+            onPaintReplaced();
+        }
+        return textPaint;
+    }
+
+    /**
+     * Same style, so same measurements, but the text layout
+     * has to draw with the new paint object.
+     */
+    private void onPaintReplaced() {
+        markDirty(DIRTY_PAINT);
+        if (mLayout != null && layoutWidth >= 0) {
+            createLayout(layoutWidth);
+        }
+        invalidateBatched();
+    }
+
     /**
      * Convenience method that directly sets paint color.
      *
      * @param color color in int format
      */
     public void setTextColor(int color) {
-        textPaint.setColor(color);
-        invalidate();
+        if (textPaint.getColor() == color) {
+            return;
+        }
+        mutablePaint().setColor(color);
+        invalidateBatched();
     }
 
     /**
@@ -731,11 +1376,31 @@ public class RotationAwareTextView extends View {
         return backgroundColor;
     }
 
+    /**
+     * Inside a batch, the color is applied once, when the batch is committed.
+     * An existing color background is updated in place instead of being replaced.
+     */
     @Override
     public void setBackgroundColor(int backgroundColor) {
-        super.setBackgroundColor(backgroundColor);
         this.backgroundColor = backgroundColor;
-        invalidate();
+        if (batchDepth > 0) {
+            batchBackground = true;
+            return;
+        }
+        applyBackgroundColor();
+    }
+
+    private void applyBackgroundColor() {
+        Drawable background = getBackground();
+        if (background instanceof ColorDrawable) {
+            ColorDrawable colorDrawable = (ColorDrawable) background.mutate();
+            if (colorDrawable.getColor() != backgroundColor) {
+                // invalidates through the drawable callback
+                colorDrawable.setColor(backgroundColor);
+            }
+        } else {
+            super.setBackgroundColor(backgroundColor);
+        }
     }
 
     /**
@@ -781,12 +1446,61 @@ public class RotationAwareTextView extends View {
     }
 
     public void setShadowColor(int shadowColor) {
+        if (this.shadowColor == shadowColor) {
+            return;
+        }
         this.shadowColor = shadowColor;
-        invalidate();
+        invalidateBatched();
     }
 
+    /**
+     * Applies the current shadow radius and color to the paint.
+     * Does nothing if they did not change since the last call.
+     * Inside a batch, the shadow is applied once, when the batch is committed.
+     */
     public void setShadowLayer() {
-        getTextPaint().setShadowLayer(shadowRadius, 0, 0, shadowColor);
+        if (batchDepth > 0) {
+            batchShadow = true;
+            return;
+        }
+        applyShadowLayer();
+    }
+
+    private void applyShadowLayer() {
+        if (shadowCacheEnabled) {
+            invalidateBatched();
+            return;
+        }
+        if (paintShadowRadius == shadowRadius && paintShadowColor == shadowColor) {
+            return;
+        }
+        paintShadowRadius = shadowRadius;
+        paintShadowColor = shadowColor;
+        mutablePaint().setShadowLayer(shadowRadius, 0, 0, shadowColor);
+        invalidateBatched();
+    }
+
+    /**
+     * @return true if the shadow is drawn from {@link ShadowCache}
+     */
+    public boolean isShadowCacheEnabled() {
+        return shadowCacheEnabled;
+    }
+
+    /**
+     * When enabled, the text shadow is not drawn by the paint's shadow layer,
+     * but composited from pre-blurred masks at quantized radii
+     * (see {@link ShadowCache}). Animating the shadow radius or color
+     * then costs about as much as drawing the text.
+     *
+     * @param shadowCacheEnabled true to enable, false to disable
+     */
+    public void setShadowCacheEnabled(boolean shadowCacheEnabled) {
+        this.shadowCacheEnabled = shadowCacheEnabled;
+        paintShadowRadius = 0;
+        paintShadowColor = 0;
+        mutablePaint().clearShadowLayer();
+        setShadowLayer();
         invalidate();
     }
 
@@ -866,7 +1580,152 @@ public class RotationAwareTextView extends View {
      */
     public void setTextSize(float textSize) {
         this.textSize = (int) Math.max(minTextSize, textSize);
-        textPaint.setTextSize(this.textSize);
+        if (textScaling) {
+            textScale = (float) this.textSize / textScaleSize;
+            invalidateBatched();
+            return;
+        }
+        if (textPaint.getTextSize() != this.textSize) {
+            mutablePaint().setTextSize(this.textSize);
+            // the bounds may not change with it, so no layout pass rebuilds the text layout
+            markDirty(DIRTY_PAINT);
+            if (mLayout != null && layoutWidth >= 0) {
+                createLayout(layoutWidth);
+            }
+            invalidateBatched();
+        }
+    }
+
+    /**
+     * Builds the text layout at the given size and draws every
+     * following {@link #setTextSize(float)} as a canvas scale,
+     * until {@link #endTextScale()} is called.
+     *
+     * @param layoutTextSize the size the text layout is built with, in pixels.
+     */
+    public void beginTextScale(int layoutTextSize) {
+        textScaling = true;
+        textScaleSize = Math.max(minTextSize, layoutTextSize);
+        mutablePaint().setTextSize(textScaleSize);
+        requestInternalLayout();
+        textScale = (float) textSize / textScaleSize;
+        invalidate();
+    }
+
+    /**
+     * Applies the current text size to the paint and
+     * rebuilds the text layout at that exact size.
+     */
+    public void endTextScale() {
+        if (!textScaling) {
+            return;
+        }
+        textScaling = false;
+        textScale = 1;
+        mutablePaint().setTextSize(textSize);
+        requestInternalLayout();
+        invalidate();
+    }
+
+    /**
+     * @return true if the text is drawn from a bitmap snapshot while animating
+     */
+    public boolean isSnapshotWhileAnimating() {
+        return snapshotWhileAnimating;
+    }
+
+    /**
+     * Opt-in mode: while animating, the text and its shadow are drawn from
+     * pooled alpha bitmaps rendered once, in {@link #beginSnapshot()},
+     * instead of laying out and blurring the text on every frame. <br />
+     * Text and shadow colors and the text size still animate;
+     * the shadow radius is the one in use when the snapshot is taken.
+     *
+     * @param snapshotWhileAnimating true to enable, false to disable
+     */
+    public void setSnapshotWhileAnimating(boolean snapshotWhileAnimating) {
+        this.snapshotWhileAnimating = snapshotWhileAnimating;
+        if (!snapshotWhileAnimating) {
+            endSnapshot();
+        }
+    }
+
+    /**
+     * Renders the current text layout and shadow into alpha bitmaps
+     * and draws them until {@link #endSnapshot()} is called.
+     * A shared paint is first replaced with a private copy, see {@link #sharePaint()}.
+     * Does nothing unless {@link #setSnapshotWhileAnimating(boolean)} is enabled.
+     */
+    public void beginSnapshot() {
+        if (!snapshotWhileAnimating || mLayout == null || textSnapshot != null) {
+            return;
+        }
+        // pooled paints must not be modified
+        TextPaint paint = mutablePaint();
+        BitmapPool pool = BitmapPool.getInstance();
+        snapshotPadding = shadowRadius;
+        snapshotTextSize = (int) paint.getTextSize();
+        snapshotLayoutWidth = mLayout.getWidth();
+        snapshotLayoutHeight = mLayout.getHeight();
+        int width = snapshotLayoutWidth + 2 * snapshotPadding;
+        int height = snapshotLayoutHeight + 2 * snapshotPadding;
+
+        int color = paint.getColor();
+        paint.clearShadowLayer();
+        paint.setColor(Color.BLACK);
+
+        textSnapshot = pool.acquire(width, height);
+        snapshotCanvas.setBitmap(textSnapshot);
+        snapshotCanvas.save();
+        snapshotCanvas.translate(snapshotPadding, snapshotPadding);
+        mLayout.draw(snapshotCanvas);
+        snapshotCanvas.restore();
+
+        if (shadowRadius > 0 && Color.alpha(shadowColor) != 0) {
+            shadowSnapshot = pool.acquire(width, height);
+            snapshotCanvas.setBitmap(shadowSnapshot);
+            snapshotCanvas.save();
+            snapshotCanvas.translate(snapshotPadding, snapshotPadding);
+            paint.setMaskFilter(new BlurMaskFilter(shadowRadius, BlurMaskFilter.Blur.NORMAL));
+            mLayout.draw(snapshotCanvas);
+            paint.setMaskFilter(null);
+            snapshotCanvas.restore();
+        }
+        snapshotCanvas.setBitmap(null);
+
+        paint.setColor(color);
+        if (paintShadowRadius > 0) {
+            paint.setShadowLayer(paintShadowRadius, 0, 0, paintShadowColor);
+        } else if (paintShadowRadius < 0) {
+            // the shadow of a replaced paint is unknown and now cleared, apply ours
+            paintShadowRadius = 0;
+            paintShadowColor = 0;
+            applyShadowLayer();
+        }
+        invalidate();
+    }
+
+    /**
+     * Returns the snapshot bitmaps to the pool and
+     * goes back to drawing the text layout.
+     */
+    public void endSnapshot() {
+        if (textSnapshot == null) {
+            return;
+        }
+        BitmapPool pool = BitmapPool.getInstance();
+        pool.release(textSnapshot);
+        pool.release(shadowSnapshot);
+        textSnapshot = null;
+        shadowSnapshot = null;
+        invalidate();
+    }
+
+    /**
+     * @return true between {@link #beginTextScale(int)} and {@link #endTextScale()}
+     */
+    public boolean isTextScaling() {
+        return textScaling;
     }
 
     /**
@@ -879,14 +1738,49 @@ public class RotationAwareTextView extends View {
 
     /**
      * Configure the view to clear its variables
-     * on view detachment.
+     * on view detachment. The view can not be used afterwards.
      *
      * @param clearOnDetach true to enable, false to disable
      */
-    private void setClearOnDetach(boolean clearOnDetach) {
+    public void setClearOnDetach(boolean clearOnDetach) {
         this.clearOnDetach = clearOnDetach;
     }
 
+    /**
+     * @return the host whose animation is paused while this view
+     * is detached or hidden, or null
+     */
+    public RotationAnimatorHost getAnimatorHost() {
+        return animatorHost;
+    }
+
+    /**
+     * Called by a {@link RotationAnimatorHost} when it starts animating this view.
+     *
+     * @param animatorHost the host to pause and resume, or null
+     */
+    public void setAnimatorHost(RotationAnimatorHost animatorHost) {
+        this.animatorHost = animatorHost;
+    }
+
+    /**
+     * @return true if a paused animation jumps to its end state
+     * when the view is shown again, false if it continues
+     */
+    public boolean isFinishOnResume() {
+        return finishOnResume;
+    }
+
+    /**
+     * Selects what happens to an animation that was paused because
+     * the view was detached or hidden, once the view is shown again.
+     *
+     * @param finishOnResume true to jump to the end state, false (default) to continue
+     */
+    public void setFinishOnResume(boolean finishOnResume) {
+        this.finishOnResume = finishOnResume;
+    }
+
     /**
      * Rudimentary implementation of horizontal gravity
      *
@@ -908,6 +1802,9 @@ public class RotationAwareTextView extends View {
      *                GRAVITY_END = 2;<br />
      */
     public void setGravity(int gravity) {
+        if (this.gravity != gravity) {
+            markDirty(DIRTY_GRAVITY);
+        }
         this.gravity = gravity;
     }
 
@@ -925,6 +1822,9 @@ public class RotationAwareTextView extends View {
      *                  of its containing view
      */
     public void setEllipsize(boolean ellipsize) {
+        if (this.ellipsize != ellipsize) {
+            markDirty(DIRTY_ELLIPSIZE);
+        }
         this.ellipsize = ellipsize;
     }
 
@@ -943,9 +1843,112 @@ public class RotationAwareTextView extends View {
      *                   {@link TextUtils.TruncateAt#MARQUEE} is not supported.
      */
     public void setEllipsizeMode(TextUtils.TruncateAt truncateAt) {
+        if (this.truncateAt != truncateAt) {
+            markDirty(DIRTY_ELLIPSIZE);
+        }
         this.truncateAt = truncateAt;
     }
 
+    /**
+     * Starts a batch of property updates. Until the matching
+     * {@link #commitBatch()}, setters only record what has to be
+     * redrawn or laid out. Batches can be nested.
+     */
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    /**
+     * Ends a batch started by {@link #beginBatch()}. When the outermost batch
+     * is committed, the background color and the shadow are applied and at most one
+     * layout request and one invalidation are issued.
+     */
+    public void commitBatch() {
+        if (batchDepth == 1 && batchShadow) {
+            batchShadow = false;
+            // still inside the batch, so its invalidation is merged with the others
+            applyShadowLayer();
+        }
+        if (batchDepth == 0 || --batchDepth > 0) {
+            return;
+        }
+        if (batchBackground) {
+            batchBackground = false;
+            applyBackgroundColor();
+        }
+        if (batchLayout) {
+            batchLayout = false;
+            super.requestLayout();
+        }
+        if (batchInvalidate) {
+            batchInvalidate = false;
+            invalidate();
+        }
+    }
+
+    /**
+     * Applies all the visual values of an animation frame in one batch:
+     * rotation, text color, background color, text size and shadow.
+     * Size and margins are left to the caller.
+     *
+     * @param frame the values to apply
+     */
+    public void applyState(RotationFrame frame) {
+        applyState(frame, AnimationProgram.ALL_CHANNELS);
+    }
+
+    /**
+     * Same as {@link #applyState(RotationFrame)}, restricted to the channels in the mask.
+     *
+     * @param frame the values to apply
+     * @param mask  bit c set means channel c is applied, see {@link AnimationProgram}
+     */
+    public void applyState(RotationFrame frame, int mask) {
+        beginBatch();
+        if ((mask & 1 << AnimationSpec.CHANNEL_ROTATION) != 0) {
+            setRotation(frame.rotation);
+        }
+        if ((mask & 1 << AnimationSpec.CHANNEL_TEXT_COLOR) != 0) {
+            setTextColor(frame.textColor);
+        }
+        if ((mask & 1 << AnimationSpec.CHANNEL_BACKGROUND_COLOR) != 0) {
+            setBackgroundColor(frame.backgroundColor);
+        }
+        if ((mask & 1 << AnimationSpec.CHANNEL_TEXT_SIZE) != 0) {
+            setTextSize(frame.textSize);
+        }
+        if ((mask & (1 << AnimationSpec.CHANNEL_SHADOW_RADIUS | 1 << AnimationSpec.CHANNEL_SHADOW_COLOR)) != 0) {
+            if ((mask & 1 << AnimationSpec.CHANNEL_SHADOW_RADIUS) != 0) {
+                setShadowRadius(frame.shadowRadius);
+            }
+            if ((mask & 1 << AnimationSpec.CHANNEL_SHADOW_COLOR) != 0) {
+                setShadowColor(frame.shadowColor);
+            }
+            setShadowLayer();
+        }
+        commitBatch();
+    }
+
+    /**
+     * Inside a batch, the request is deferred until the batch is committed.
+     */
+    @Override
+    public void requestLayout() {
+        if (batchDepth > 0) {
+            batchLayout = true;
+            return;
+        }
+        super.requestLayout();
+    }
+
+    private void invalidateBatched() {
+        if (batchDepth > 0) {
+            batchInvalidate = true;
+            return;
+        }
+        invalidate();
+    }
+
     /**
      * Request this view to layout text again with the width supplied by this method.
      *
@@ -987,53 +1990,75 @@ public class RotationAwareTextView extends View {
     /**
      * Create or update the layout.
      *
-     * @param width the width of the container (outer width for the boring layout)
+     * @param width the width of the container (outer width for the layout)
      */
     private void createLayout(int width) {
-        BoringLayout.Metrics metrics = new BoringLayout.Metrics();
-        metrics.width = (int) textPaint.measureText(text); //Math.max(originalWidth, originalHeight);
-        metrics.top = 0; // only this is used
-
-        BoringLayout.Metrics boringMetrics = BoringLayout.isBoring(text, textPaint, metrics);
-//        Log.v(TAG, "createLayout: is it boring? " + (boringMetrics == null ? " no." : " yes."));
-
-        /*
-        source 	        CharSequence: the text to render
-        paint 	        TextPaint: the default paint for the layout
-        outerWidth 	    int: the wrapping width for the text
-        align 	        Layout.Alignment: whether to left, right, or center the text
-        spacingMult 	float: this value is no longer used by BoringLayout
-        spacingAdd 	    float: this value is no longer used by BoringLayout
-        metrics 	    BoringLayout.Metrics: information about FontMetrics and line width
-        includePad 	    boolean: set whether to include extra space beyond font ascent and descent
-                            which is needed to avoid clipping in some scripts
-        */
-
-        if (mLayout != null) {
-            mLayout = ((BoringLayout) mLayout).replaceOrMake(
-                    text,
-                    textPaint,
-                    width,
-                    getAlignmentFromGravity(gravity),
-                    0F,
-                    0F,
-                    boringMetrics,
-                    true,
-                    ellipsize ? truncateAt : null,
-                    (int) (width - textPaint.measureText("W")));
-        } else {
-            mLayout = BoringLayout.make(
-                    text,
-                    textPaint,
-                    width,
-                    getAlignmentFromGravity(gravity),
-                    0F,
-                    0F,
-                    boringMetrics,
-                    true,
-                    ellipsize ? truncateAt : null,
-                    (int) (width - textPaint.measureText("W")));
+        checkPaint();
+        if (tickerMode) {
+            createTickerLayout(width);
+            layoutWidth = width;
+            layoutDirty = 0;
+            return;
+        }
+        mLayout = layoutBuilder.build(
+                text,
+                textPaint,
+                width,
+                getAlignmentFromGravity(gravity),
+                ellipsize ? truncateAt : null,
+                getTextMetrics());
+        layoutWidth = width;
+        layoutDirty = 0;
+    }
+
+    /**
+     * @return how many times a layout pass reused the existing
+     * text layout because none of its inputs changed.
+     */
+    public int getSkippedLayoutCount() {
+        return skippedLayoutCount;
+    }
+
+    private void markDirty(int flags) {
+        measureDirty |= flags;
+        layoutDirty |= flags;
+        if ((flags & (DIRTY_TEXT | DIRTY_PAINT)) != 0) {
+            precomputedMetrics = null;
+        }
+        if ((flags & DIRTY_PAINT) != 0) {
+            paintGeneration++;
+        }
+    }
+
+    /**
+     * The paint can be changed from outside (see {@link #getTextPaint()}),
+     * so its state is compared instead of relying on setters.
+     */
+    private void checkPaint() {
+        if (textPaint != lastPaint
+                || textPaint.getTextSize() != lastPaintTextSize
+                || textPaint.getTextScaleX() != lastPaintTextScaleX
+                || textPaint.getTypeface() != lastPaintTypeface
+                || textPaint.getFlags() != lastPaintFlags) {
+            lastPaint = textPaint;
+            lastPaintTextSize = textPaint.getTextSize();
+            lastPaintTextScaleX = textPaint.getTextScaleX();
+            lastPaintTypeface = textPaint.getTypeface();
+            lastPaintFlags = textPaint.getFlags();
+            markDirty(DIRTY_PAINT);
+        }
+    }
+
+    /**
+     * @return measurements for the current text and paint: the ones delivered
+     * to {@link #setTextAsync(String)}, or else the ones shared with all
+     * other views through {@link TextMetricsCache}.
+     */
+    private TextMetricsCache.Entry getTextMetrics() {
+        if (precomputedMetrics != null) {
+            return precomputedMetrics;
         }
+        return TextMetricsCache.getInstance().get(text, textPaint);
     }
 
     private Layout.Alignment getAlignmentFromGravity(int gravity) {
@@ -1051,8 +2076,16 @@ public class RotationAwareTextView extends View {
      */
     private void clear() {
         if (clearOnDetach) {
+            // already paused, the host is only released
+            animatorHost = null;
             setBackgroundDrawable(null);
             mLayout = null;
+            layoutBuilder.clear();
+            if (paintShared) {
+                TextPaintPool.getInstance().release(textPaint);
+                paintShared = false;
+            }
+            lastPaint = null;
             textPaint = null;
             p = null;
             text = null;
@@ -0,0 +1,115 @@
+package org.rares.ratv.rotationaware;
+
+import android.content.res.Resources;
+import android.util.AttributeSet;
+
+import org.rares.ratv.R;
+
+import java.util.HashMap;
+import java.util.WeakHashMap;
+
+/**
+ * Cache of parsed {@link RotationAwareTextView} attributes. <br />
+ * Attribute sets are identified by their style and by the raw values of the
+ * attributes the view reads, per theme. A repeated inflation of the same
+ * declaration (e.g. a RecyclerView row) copies the cached state block
+ * instead of resolving the styled attributes again. <br />
+ * Also keeps inflation counters, to measure what inflating these views costs.
+ */
+public final class StyledAttributesCache {
+
+    private static final WeakHashMap<Resources.Theme, HashMap<String, int[]>> CACHE = new WeakHashMap<>();
+
+    private static long inflationCount = 0;
+    private static long inflationTimeNanos = 0;
+    private static long hitCount = 0;
+
+    private StyledAttributesCache() {
+    }
+
+    /**
+     * @return an identifier for the attributes that {@link RotationAwareTextView} reads
+     */
+    static String keyOf(AttributeSet attrs) {
+        StringBuilder key = new StringBuilder(128);
+        key.append(attrs.getStyleAttribute());
+        for (int i = 0, count = attrs.getAttributeCount(); i < count; i++) {
+            int name = attrs.getAttributeNameResource(i);
+            if (name == android.R.attr.layout_width
+                    || name == android.R.attr.layout_height
+                    || isStyleable(name)) {
+                key.append('|').append(name).append('=').append(attrs.getAttributeValue(i));
+            }
+        }
+        return key.toString();
+    }
+
+    private static boolean isStyleable(int name) {
+        int[] styleable = R.styleable.RotationAwareTextView;
+        for (int attr : styleable) {
+            if (attr == name) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static synchronized int[] get(Resources.Theme theme, String key) {
+        HashMap<String, int[]> states = CACHE.get(theme);
+        return states == null ? null : states.get(key);
+    }
+
+    static synchronized void put(Resources.Theme theme, String key, int[] state) {
+        HashMap<String, int[]> states = CACHE.get(theme);
+        if (states == null) {
+            states = new HashMap<>();
+            CACHE.put(theme, states);
+        }
+        states.put(key, state);
+    }
+
+    static synchronized void recordInflation(long nanos, boolean hit) {
+        inflationCount++;
+        inflationTimeNanos += nanos;
+        if (hit) {
+            hitCount++;
+        }
+    }
+
+    /**
+     * @return how many views were initialized from attributes or code
+     */
+    public static synchronized long getInflationCount() {
+        return inflationCount;
+    }
+
+    /**
+     * @return total time spent initializing views, in nanoseconds
+     */
+    public static synchronized long getInflationTimeNanos() {
+        return inflationTimeNanos;
+    }
+
+    /**
+     * @return how many inflations were served from the cache
+     */
+    public static synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Resets the inflation counters.
+     */
+    public static synchronized void resetStats() {
+        inflationCount = 0;
+        inflationTimeNanos = 0;
+        hitCount = 0;
+    }
+
+    /**
+     * Drops all cached attribute states.
+     */
+    public static synchronized void clear() {
+        CACHE.clear();
+    }
+}
@@ -0,0 +1,115 @@
+package org.rares.ratv.rotationaware.animation;
+
+/**
+ * Compiled form of an {@link AnimationSpec}: the set of channels
+ * whose start and end values differ. <br />
+ * Only these channels are animated on every frame; the constant
+ * ones are applied once, when the animation starts.
+ * Use {@link AnimationSpec#getProgram()} to get the cached program of a spec.
+ */
+public final class AnimationProgram {
+
+    /**
+     * Mask holding every channel.
+     */
+    public static final int ALL_CHANNELS = (1 << AnimationSpec.CHANNEL_COUNT) - 1;
+    /**
+     * Mask of the channels written to the layout params.
+     */
+    public static final int LAYOUT_CHANNELS = 1 << AnimationSpec.CHANNEL_WIDTH
+            | 1 << AnimationSpec.CHANNEL_HEIGHT
+            | 1 << AnimationSpec.CHANNEL_MARGIN_LEFT
+            | 1 << AnimationSpec.CHANNEL_MARGIN_TOP
+            | 1 << AnimationSpec.CHANNEL_MARGIN_RIGHT
+            | 1 << AnimationSpec.CHANNEL_MARGIN_BOTTOM;
+
+    //    indexed by channel
+    static final String[] PROPERTY_NAMES = {
+            RotationAware.ROTATION,
+            RotationAware.WIDTH,
+            RotationAware.HEIGHT,
+            RotationAware.BACKGROUND_COLOR,
+            RotationAware.TEXT_COLOR,
+            RotationAware.TEXT_SIZE,
+            RotationAware.MARGIN_LEFT,
+            RotationAware.MARGIN_TOP,
+            RotationAware.MARGIN_RIGHT,
+            RotationAware.MARGIN_BOTTOM,
+            RotationAware.SHADOW_RADIUS,
+            RotationAware.SHADOW_COLOR
+    };
+
+    private final AnimationSpec spec;
+    private final int mask;
+
+    private AnimationProgram(AnimationSpec spec, int mask) {
+        this.spec = spec;
+        this.mask = mask;
+    }
+
+    /**
+     * Prefer {@link AnimationSpec#getProgram()}, which caches the result.
+     *
+     * @param spec the animation values
+     * @return a program animating only the channels that change
+     */
+    public static AnimationProgram compile(AnimationSpec spec) {
+        int mask = 0;
+        for (int channel = 0; channel < AnimationSpec.CHANNEL_COUNT; channel++) {
+            if (spec.getMin(channel) != spec.getMax(channel)) {
+                mask |= 1 << channel;
+            }
+        }
+        return new AnimationProgram(spec, mask);
+    }
+
+    /**
+     * @return the spec this program was compiled from
+     */
+    public AnimationSpec getSpec() {
+        return spec;
+    }
+
+    /**
+     * @return bit mask of the animated channels, bit c standing for channel c
+     */
+    public int getMask() {
+        return mask;
+    }
+
+    /**
+     * @return bit mask of the channels that keep the same value
+     */
+    public int getConstantMask() {
+        return ~mask & ALL_CHANNELS;
+    }
+
+    /**
+     * @param channel one of the AnimationSpec.CHANNEL_* constants
+     * @return true if the channel changes during the animation
+     */
+    public boolean animates(int channel) {
+        return (mask & 1 << channel) != 0;
+    }
+
+    /**
+     * @return true if size or margins change, i.e. the animation requests layouts
+     */
+    public boolean touchesLayout() {
+        return (mask & LAYOUT_CHANNELS) != 0;
+    }
+
+    /**
+     * @return true if no channel changes
+     */
+    public boolean isEmpty() {
+        return mask == 0;
+    }
+
+    /**
+     * Fills the animated channels of the frame, leaving the others untouched.
+     */
+    public void evaluate(RotationFrame frame, boolean reverse, float fraction) {
+        frame.evaluate(spec, reverse, fraction, mask);
+    }
+}
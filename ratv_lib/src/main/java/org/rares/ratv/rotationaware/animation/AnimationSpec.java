@@ -0,0 +1,251 @@
+package org.rares.ratv.rotationaware.animation;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.WeakHashMap;
+
+/**
+ * Immutable counterpart of {@link AnimationDTO}. <br />
+ * The start and end values of every channel are kept in a single
+ * primitive table. Specs can be shared across views and threads;
+ * {@link #intern()} returns a canonical instance, so identical
+ * labels end up referencing one spec.
+ */
+public final class AnimationSpec {
+
+    public static final int CHANNEL_ROTATION = 0;
+    public static final int CHANNEL_WIDTH = 1;
+    public static final int CHANNEL_HEIGHT = 2;
+    public static final int CHANNEL_BACKGROUND_COLOR = 3;
+    public static final int CHANNEL_TEXT_COLOR = 4;
+    public static final int CHANNEL_TEXT_SIZE = 5;
+    public static final int CHANNEL_MARGIN_LEFT = 6;
+    public static final int CHANNEL_MARGIN_TOP = 7;
+    public static final int CHANNEL_MARGIN_RIGHT = 8;
+    public static final int CHANNEL_MARGIN_BOTTOM = 9;
+    public static final int CHANNEL_SHADOW_RADIUS = 10;
+    public static final int CHANNEL_SHADOW_COLOR = 11;
+
+    public static final int CHANNEL_COUNT = 12;
+
+    private static final WeakHashMap<AnimationSpec, WeakReference<AnimationSpec>> POOL = new WeakHashMap<>();
+
+    //    min value of channel c at 2 * c, max value at 2 * c + 1
+    private final int[] table;
+    private final int hash;
+
+    private AnimationProgram program;
+
+    private AnimationSpec(int[] table) {
+        this.table = table;
+        this.hash = Arrays.hashCode(table);
+    }
+
+    /**
+     * @param data mutable animation data
+     * @return a new spec holding the same values
+     */
+    public static AnimationSpec from(AnimationDTO data) {
+        return new Builder()
+                .rotation(data.minRotation, data.maxRotation)
+                .width(data.minWidth, data.maxWidth)
+                .height(data.minHeight, data.maxHeight)
+                .backgroundColor(data.minBackgroundColor, data.maxBackgroundColor)
+                .textColor(data.minTextColor, data.maxTextColor)
+                .textSize(data.minTextSize, data.maxTextSize)
+                .marginLeft(data.minMarginLeft, data.maxMarginLeft)
+                .marginTop(data.minMarginTop, data.maxMarginTop)
+                .marginRight(data.minMarginRight, data.maxMarginRight)
+                .marginBottom(data.minMarginBottom, data.maxMarginBottom)
+                .shadowRadius(data.minShadowRadius, data.maxShadowRadius)
+                .shadowColor(data.minShadowColor, data.maxShadowColor)
+                .build();
+    }
+
+    /**
+     * @return a mutable copy of this spec
+     */
+    public AnimationDTO toAnimationDTO() {
+        AnimationDTO data = new AnimationDTO();
+        data.minRotation = getMin(CHANNEL_ROTATION);
+        data.maxRotation = getMax(CHANNEL_ROTATION);
+        data.minWidth = getMin(CHANNEL_WIDTH);
+        data.maxWidth = getMax(CHANNEL_WIDTH);
+        data.minHeight = getMin(CHANNEL_HEIGHT);
+        data.maxHeight = getMax(CHANNEL_HEIGHT);
+        data.minBackgroundColor = getMin(CHANNEL_BACKGROUND_COLOR);
+        data.maxBackgroundColor = getMax(CHANNEL_BACKGROUND_COLOR);
+        data.minTextColor = getMin(CHANNEL_TEXT_COLOR);
+        data.maxTextColor = getMax(CHANNEL_TEXT_COLOR);
+        data.minTextSize = getMin(CHANNEL_TEXT_SIZE);
+        data.maxTextSize = getMax(CHANNEL_TEXT_SIZE);
+        data.minMarginLeft = getMin(CHANNEL_MARGIN_LEFT);
+        data.maxMarginLeft = getMax(CHANNEL_MARGIN_LEFT);
+        data.minMarginTop = getMin(CHANNEL_MARGIN_TOP);
+        data.maxMarginTop = getMax(CHANNEL_MARGIN_TOP);
+        data.minMarginRight = getMin(CHANNEL_MARGIN_RIGHT);
+        data.maxMarginRight = getMax(CHANNEL_MARGIN_RIGHT);
+        data.minMarginBottom = getMin(CHANNEL_MARGIN_BOTTOM);
+        data.maxMarginBottom = getMax(CHANNEL_MARGIN_BOTTOM);
+        data.minShadowRadius = getMin(CHANNEL_SHADOW_RADIUS);
+        data.maxShadowRadius = getMax(CHANNEL_SHADOW_RADIUS);
+        data.minShadowColor = getMin(CHANNEL_SHADOW_COLOR);
+        data.maxShadowColor = getMax(CHANNEL_SHADOW_COLOR);
+        return data;
+    }
+
+    /**
+     * @return the canonical instance holding the same values as this spec
+     */
+    public AnimationSpec intern() {
+        synchronized (POOL) {
+            WeakReference<AnimationSpec> reference = POOL.get(this);
+            AnimationSpec canonical = reference == null ? null : reference.get();
+            if (canonical == null) {
+                POOL.put(this, new WeakReference<>(this));
+                canonical = this;
+            }
+            return canonical;
+        }
+    }
+
+    /**
+     * @param channel one of the CHANNEL_* constants
+     * @return the value at the start of the animation
+     */
+    public int getMin(int channel) {
+        return table[2 * channel];
+    }
+
+    /**
+     * @param channel one of the CHANNEL_* constants
+     * @return the value at the end of the animation
+     */
+    public int getMax(int channel) {
+        return table[2 * channel + 1];
+    }
+
+    /**
+     * @param channel one of the CHANNEL_* constants
+     * @param reverse true means the animation is running backwards
+     * @return the value at the end of an animation in the given direction
+     */
+    public int getEnd(int channel, boolean reverse) {
+        return table[2 * channel + (reverse ? 0 : 1)];
+    }
+
+    /**
+     * @return the compiled program of this spec, created on first use
+     */
+    public AnimationProgram getProgram() {
+        AnimationProgram compiled = program;
+        if (compiled == null) {
+            //    benign race, the program is immutable
+            compiled = AnimationProgram.compile(this);
+            program = compiled;
+        }
+        return compiled;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AnimationSpec)) {
+            return false;
+        }
+        AnimationSpec other = (AnimationSpec) o;
+        return hash == other.hash && Arrays.equals(table, other.table);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return AnimationSpec.class.getSimpleName() + "#" + this.hashCode() +
+                "\nrotation: " + getMin(CHANNEL_ROTATION) + " -> " + getMax(CHANNEL_ROTATION) +
+                "\nwidth: " + getMin(CHANNEL_WIDTH) + " -> " + getMax(CHANNEL_WIDTH) +
+                "\nheight: " + getMin(CHANNEL_HEIGHT) + " -> " + getMax(CHANNEL_HEIGHT) +
+                "\nmarginLeft: " + getMin(CHANNEL_MARGIN_LEFT) + " -> " + getMax(CHANNEL_MARGIN_LEFT) +
+                "\nmarginTop: " + getMin(CHANNEL_MARGIN_TOP) + " -> " + getMax(CHANNEL_MARGIN_TOP) +
+                "\nmarginRight: " + getMin(CHANNEL_MARGIN_RIGHT) + " -> " + getMax(CHANNEL_MARGIN_RIGHT) +
+                "\nmarginBottom: " + getMin(CHANNEL_MARGIN_BOTTOM) + " -> " + getMax(CHANNEL_MARGIN_BOTTOM) +
+                "\ntextSize: " + getMin(CHANNEL_TEXT_SIZE) + " -> " + getMax(CHANNEL_TEXT_SIZE) +
+                "\ntextColor: " + getMin(CHANNEL_TEXT_COLOR) + " -> " + getMax(CHANNEL_TEXT_COLOR) +
+                "\nshadowRadius: " + getMin(CHANNEL_SHADOW_RADIUS) + " -> " + getMax(CHANNEL_SHADOW_RADIUS) +
+                "\nshadowColor: " + getMin(CHANNEL_SHADOW_COLOR) + " -> " + getMax(CHANNEL_SHADOW_COLOR) +
+                "\nbackgroundColor: " + getMin(CHANNEL_BACKGROUND_COLOR) + " -> " + getMax(CHANNEL_BACKGROUND_COLOR);
+    }
+
+    /**
+     * Builds {@link AnimationSpec}s. Channels that are not set stay 0 -> 0.
+     */
+    public static class Builder {
+        private final int[] table = new int[2 * CHANNEL_COUNT];
+
+        public Builder channel(int channel, int min, int max) {
+            table[2 * channel] = min;
+            table[2 * channel + 1] = max;
+            return this;
+        }
+
+        public Builder rotation(int min, int max) {
+            return channel(CHANNEL_ROTATION, min, max);
+        }
+
+        public Builder width(int min, int max) {
+            return channel(CHANNEL_WIDTH, min, max);
+        }
+
+        public Builder height(int min, int max) {
+            return channel(CHANNEL_HEIGHT, min, max);
+        }
+
+        public Builder backgroundColor(int min, int max) {
+            return channel(CHANNEL_BACKGROUND_COLOR, min, max);
+        }
+
+        public Builder textColor(int min, int max) {
+            return channel(CHANNEL_TEXT_COLOR, min, max);
+        }
+
+        public Builder textSize(int min, int max) {
+            return channel(CHANNEL_TEXT_SIZE, min, max);
+        }
+
+        public Builder marginLeft(int min, int max) {
+            return channel(CHANNEL_MARGIN_LEFT, min, max);
+        }
+
+        public Builder marginTop(int min, int max) {
+            return channel(CHANNEL_MARGIN_TOP, min, max);
+        }
+
+        public Builder marginRight(int min, int max) {
+            return channel(CHANNEL_MARGIN_RIGHT, min, max);
+        }
+
+        public Builder marginBottom(int min, int max) {
+            return channel(CHANNEL_MARGIN_BOTTOM, min, max);
+        }
+
+        public Builder shadowRadius(int min, int max) {
+            return channel(CHANNEL_SHADOW_RADIUS, min, max);
+        }
+
+        public Builder shadowColor(int min, int max) {
+            return channel(CHANNEL_SHADOW_COLOR, min, max);
+        }
+
+        /**
+         * @return a new spec; call {@link AnimationSpec#intern()} to share it
+         */
+        public AnimationSpec build() {
+            return new AnimationSpec(table.clone());
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package org.rares.ratv.rotationaware.animation;
+
+import android.animation.TimeInterpolator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * Immutable set of keyframes, for any number of channels. <br />
+ * Where an {@link AnimationSpec} only holds a start and an end value,
+ * a timeline holds a sequence of timed values per channel, e.g. rotate,
+ * then shrink, then recolor. All keyframes are kept in flat primitive arrays,
+ * and every segment between two keyframes may have its own interpolator. <br />
+ * Evaluation does not allocate; the segment used last is remembered
+ * in a caller supplied cursor array, so sequential times are resolved
+ * without searching.
+ */
+public final class AnimationTimeline {
+
+    //    keyframes of channel c are at [offsets[c], offsets[c + 1])
+    private final int[] offsets;
+    private final long[] times;
+    private final int[] values;
+    //    interpolator of the segment ending at keyframe i, null for linear
+    private final TimeInterpolator[] interpolators;
+
+    private final int mask;
+    private final long duration;
+
+    private AnimationTimeline(int[] offsets, long[] times, int[] values, TimeInterpolator[] interpolators) {
+        this.offsets = offsets;
+        this.times = times;
+        this.values = values;
+        this.interpolators = interpolators;
+
+        int channelMask = 0;
+        long lastTime = 0;
+        for (int channel = 0; channel < AnimationSpec.CHANNEL_COUNT; channel++) {
+            if (offsets[channel + 1] > offsets[channel]) {
+                channelMask |= 1 << channel;
+                lastTime = Math.max(lastTime, times[offsets[channel + 1] - 1]);
+            }
+        }
+        this.mask = channelMask;
+        this.duration = lastTime;
+    }
+
+    /**
+     * @return the time of the last keyframe, in milliseconds
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return bit mask of the channels that have keyframes, bit c standing for channel c
+     */
+    public int getMask() {
+        return mask;
+    }
+
+    /**
+     * @param channel one of the AnimationSpec.CHANNEL_* constants
+     * @return the number of keyframes of the channel
+     */
+    public int getKeyframeCount(int channel) {
+        return offsets[channel + 1] - offsets[channel];
+    }
+
+    /**
+     * @return a cursor array to be passed to {@link #evaluate(RotationFrame, long, int[])}
+     */
+    public static int[] newCursors() {
+        return new int[AnimationSpec.CHANNEL_COUNT];
+    }
+
+    /**
+     * Fills the channels that have keyframes with their values at the given time.
+     * Before the first keyframe of a channel its first value is used,
+     * after the last one its last value.
+     *
+     * @param frame   the frame to fill
+     * @param time    in milliseconds, from the start of the timeline
+     * @param cursors segment cache, one per evaluating client, see {@link #newCursors()}
+     */
+    public void evaluate(RotationFrame frame, long time, int[] cursors) {
+        for (int channel = 0; channel < AnimationSpec.CHANNEL_COUNT; channel++) {
+            int start = offsets[channel];
+            int end = offsets[channel + 1];
+            if (start == end) {
+                continue;
+            }
+            if (time <= times[start] || end - start == 1) {
+                frame.set(channel, values[start]);
+                continue;
+            }
+            if (time >= times[end - 1]) {
+                frame.set(channel, values[end - 1]);
+                continue;
+            }
+
+            int k = findSegment(channel, start, end, time, cursors);
+            float fraction = (float) (time - times[k - 1]) / (times[k] - times[k - 1]);
+            TimeInterpolator interpolator = interpolators[k];
+            if (interpolator != null) {
+                fraction = interpolator.getInterpolation(fraction);
+            }
+            int from = values[k - 1];
+            int to = values[k];
+            if (channel == AnimationSpec.CHANNEL_ROTATION) {
+                frame.rotation = from + (to - from) * fraction;
+            } else if (isColor(channel)) {
+                frame.set(channel, RotationFrame.lerpColor(from, to, fraction));
+            } else {
+                frame.set(channel, RotationFrame.lerp(from, to, fraction));
+            }
+        }
+    }
+
+    /**
+     * @return the index of the keyframe ending the segment that holds the time,
+     * where times[start] &lt; time &lt; times[end - 1]
+     */
+    private int findSegment(int channel, int start, int end, long time, int[] cursors) {
+        int k = cursors[channel];
+        if (k > start && k < end && times[k - 1] <= time) {
+            if (time < times[k]) {
+                return k;
+            }
+            if (k + 1 < end && time < times[k + 1]) {
+                cursors[channel] = k + 1;
+                return k + 1;
+            }
+        }
+        int found = Arrays.binarySearch(times, start, end, time);
+        // first keyframe after the time
+        k = found >= 0 ? found + 1 : -found - 1;
+        // skips zero length segments, left by keyframes sharing a time
+        while (times[k] <= time) {
+            k++;
+        }
+        cursors[channel] = k;
+        return k;
+    }
+
+    private static boolean isColor(int channel) {
+        return channel == AnimationSpec.CHANNEL_BACKGROUND_COLOR
+                || channel == AnimationSpec.CHANNEL_TEXT_COLOR
+                || channel == AnimationSpec.CHANNEL_SHADOW_COLOR;
+    }
+
+    /**
+     * Builds {@link AnimationTimeline}s. Keyframes can be added in any order.
+     */
+    public static class Builder {
+
+        private final ArrayList<Keyframe> keyframes = new ArrayList<>();
+
+        /**
+         * Adds a keyframe reached linearly from the previous one.
+         *
+         * @param channel one of the AnimationSpec.CHANNEL_* constants
+         * @param time    in milliseconds, from the start of the timeline
+         * @param value   the value at that time
+         */
+        public Builder keyframe(int channel, long time, int value) {
+            return keyframe(channel, time, value, null);
+        }
+
+        /**
+         * @param channel      one of the AnimationSpec.CHANNEL_* constants
+         * @param time         in milliseconds, from the start of the timeline
+         * @param value        the value at that time
+         * @param interpolator used between the previous keyframe and this one; null for linear
+         */
+        public Builder keyframe(int channel, long time, int value, TimeInterpolator interpolator) {
+            if (channel < 0 || channel >= AnimationSpec.CHANNEL_COUNT) {
+                throw new IllegalArgumentException("Unknown channel: " + channel);
+            }
+            if (time < 0) {
+                throw new IllegalArgumentException("Keyframe time must not be negative.");
+            }
+            keyframes.add(new Keyframe(channel, time, value, interpolator));
+            return this;
+        }
+
+        /**
+         * Adds one stage: every channel that changes in the spec
+         * goes from its min value at the start time to its max value at the end time.
+         *
+         * @param startTime    in milliseconds, from the start of the timeline
+         * @param endTime      in milliseconds, from the start of the timeline
+         * @param spec         the values of this stage
+         * @param interpolator used during this stage; null for linear
+         */
+        public Builder stage(long startTime, long endTime, AnimationSpec spec, TimeInterpolator interpolator) {
+            AnimationProgram program = spec.getProgram();
+            for (int channel = 0; channel < AnimationSpec.CHANNEL_COUNT; channel++) {
+                if (program.animates(channel)) {
+                    keyframe(channel, startTime, spec.getMin(channel));
+                    keyframe(channel, endTime, spec.getMax(channel), interpolator);
+                }
+            }
+            return this;
+        }
+
+        public AnimationTimeline build() {
+            ArrayList<Keyframe> sorted = new ArrayList<>(keyframes);
+            // stable, so keyframes with equal times keep the order they were added in
+            Collections.sort(sorted, new Comparator<Keyframe>() {
+                @Override
+                public int compare(Keyframe a, Keyframe b) {
+                    if (a.channel != b.channel) {
+                        return a.channel < b.channel ? -1 : 1;
+                    }
+                    return a.time < b.time ? -1 : a.time == b.time ? 0 : 1;
+                }
+            });
+
+            int size = sorted.size();
+            int[] offsets = new int[AnimationSpec.CHANNEL_COUNT + 1];
+            long[] times = new long[size];
+            int[] values = new int[size];
+            TimeInterpolator[] interpolators = new TimeInterpolator[size];
+            for (int i = 0; i < size; i++) {
+                Keyframe keyframe = sorted.get(i);
+                offsets[keyframe.channel + 1]++;
+                times[i] = keyframe.time;
+                values[i] = keyframe.value;
+                interpolators[i] = keyframe.interpolator;
+            }
+            for (int channel = 0; channel < AnimationSpec.CHANNEL_COUNT; channel++) {
+                offsets[channel + 1] += offsets[channel];
+            }
+            return new AnimationTimeline(offsets, times, values, interpolators);
+        }
+    }
+
+    private static class Keyframe {
+        final int channel;
+        final long time;
+        final int value;
+        final TimeInterpolator interpolator;
+
+        Keyframe(int channel, long time, int value, TimeInterpolator interpolator) {
+            this.channel = channel;
+            this.time = time;
+            this.value = value;
+            this.interpolator = interpolator;
+        }
+    }
+}
@@ -2,10 +2,13 @@ package org.rares.ratv.rotationaware.animation;
 
 import android.animation.Animator;
 import android.animation.ArgbEvaluator;
+import android.animation.ObjectAnimator;
 import android.animation.PropertyValuesHolder;
 import android.animation.ValueAnimator;
 import android.support.annotation.NonNull;
 
+import org.rares.ratv.rotationaware.RotationAwareTextView;
+
 import java.util.ArrayList;
 
 /**
@@ -13,92 +16,292 @@ import java.util.ArrayList;
  */
 public class DefaultRotationAnimatorHost extends RotationAnimatorHost {
 
+    /**
+     * Size and margins are written to the layout params on every frame.
+     */
+    public static final int LAYOUT_MODE_PER_FRAME = 0;
+    /**
+     * Size and margins are drawn as scale / translation while animating.
+     * The layout params are committed once, when the animation starts.
+     */
+    public static final int LAYOUT_MODE_TRANSFORM = 1;
+
+    private int layoutMode = LAYOUT_MODE_PER_FRAME;
+    private boolean scaledTextSize = false;
+    private boolean hardwareLayer = false;
+
+    private static final ArgbEvaluator ARGB_EVALUATOR = new ArgbEvaluator();
+
+    boolean reverse = false;
+
+    private FrameUpdateListener progressListener;
+    private float progress = -1;
+
     public DefaultRotationAnimatorHost(@NonNull AnimationDTO animationData) {
         this.animationData = animationData;
     }
 
+    public DefaultRotationAnimatorHost(@NonNull AnimationSpec animationSpec) {
+        this.animationSpec = animationSpec;
+    }
+
+    /**
+     * @return one of {@link #LAYOUT_MODE_PER_FRAME}, {@link #LAYOUT_MODE_TRANSFORM}
+     */
+    public int getLayoutMode() {
+        return layoutMode;
+    }
+
+    /**
+     * Selects how size and margin changes are animated.
+     * Takes effect for listeners created after this call.
+     *
+     * @param layoutMode one of {@link #LAYOUT_MODE_PER_FRAME}, {@link #LAYOUT_MODE_TRANSFORM}
+     */
+    public void setLayoutMode(int layoutMode) {
+        this.layoutMode = layoutMode;
+    }
+
+    /**
+     * @return true if the text size is animated with a canvas scale
+     */
+    public boolean isScaledTextSize() {
+        return scaledTextSize;
+    }
+
+    /**
+     * When enabled, the text layout is built once at the end text size
+     * and intermediate sizes are drawn with a canvas scale, instead of
+     * changing the paint text size on every frame.
+     * Takes effect for listeners created after this call.
+     *
+     * @param scaledTextSize true to enable, false to disable
+     */
+    public void setScaledTextSize(boolean scaledTextSize) {
+        this.scaledTextSize = scaledTextSize;
+    }
+
+    /**
+     * @return true if the view is promoted to a hardware layer while animating
+     */
+    public boolean isHardwareLayer() {
+        return hardwareLayer;
+    }
+
+    /**
+     * When enabled, the view is switched to a hardware layer for the
+     * duration of the animation and its previous layer type is restored
+     * on end or cancel. <br />
+     * Disabled by default: the rotation and colors are drawn in onDraw,
+     * so the layer is redrawn on every frame; it pays off when the view
+     * is mostly moved or scaled, e.g. with {@link #LAYOUT_MODE_TRANSFORM}
+     * and a snapshot. Takes effect for listeners created after this call.
+     *
+     * @param hardwareLayer true to enable, false to disable
+     */
+    public void setHardwareLayer(boolean hardwareLayer) {
+        this.hardwareLayer = hardwareLayer;
+    }
+
+    /**
+     * Only the channels that change are animated, see {@link AnimationProgram}.
+     * Listeners without a program skip the channels the animator does not hold.
+     */
     @Override
     public ValueAnimator configureAnimator(boolean reverse) {
-        if (animationData == null) {
+        AnimationSpec spec = getAnimationSpec();
+        if (spec == null) {
             throw new IllegalStateException("Animation data is required.");
         }
+        this.reverse = reverse;
 
-        int fromRotation = reverse ? animationData.maxRotation : animationData.minRotation;
-        int toRotation = reverse ? animationData.minRotation : animationData.maxRotation;
+        AnimationProgram program = spec.getProgram();
+        PropertyValuesHolder[] values = new PropertyValuesHolder[Integer.bitCount(program.getMask())];
+        int index = 0;
+        for (int channel = 0; channel < AnimationSpec.CHANNEL_COUNT; channel++) {
+            if (program.animates(channel)) {
+                values[index++] = ofChannel(spec, channel, reverse);
+            }
+        }
 
-        int fromWidth = reverse ? animationData.maxWidth : animationData.minWidth;
-        int toWidth = reverse ? animationData.minWidth : animationData.maxWidth;
+        clearListeners();
 
-        int fromHeight = reverse ? animationData.maxHeight : animationData.minHeight;
-        int toHeight = reverse ? animationData.minHeight : animationData.maxHeight;
+        animator = values.length == 0
+                ? ValueAnimator.ofFloat(0, 1)
+                : ValueAnimator.ofPropertyValuesHolder(values);
 
-        int fromTextColor = reverse ? animationData.maxTextColor : animationData.minTextColor;
-        int toTextColor = reverse ? animationData.minTextColor : animationData.maxTextColor;
+        return animator;
+    }
 
-        int fromBackgroundColor = reverse ? animationData.maxBackgroundColor : animationData.minBackgroundColor;
-        int toBackgroundColor = reverse ? animationData.minBackgroundColor : animationData.maxBackgroundColor;
+    private static PropertyValuesHolder ofChannel(AnimationSpec spec, int channel, boolean reverse) {
+        String name = AnimationProgram.PROPERTY_NAMES[channel];
+        int from = spec.getEnd(channel, !reverse);
+        int to = spec.getEnd(channel, reverse);
+        switch (channel) {
+            case AnimationSpec.CHANNEL_ROTATION:
+                return PropertyValuesHolder.ofFloat(name, from, to);
+            case AnimationSpec.CHANNEL_BACKGROUND_COLOR:
+            case AnimationSpec.CHANNEL_TEXT_COLOR:
+            case AnimationSpec.CHANNEL_SHADOW_COLOR:
+                return PropertyValuesHolder.ofObject(name, ARGB_EVALUATOR, from, to);
+            default:
+                return PropertyValuesHolder.ofInt(name, from, to);
+        }
+    }
 
-        int fromTextSize = reverse ? animationData.maxTextSize : animationData.minTextSize;
-        int toTextSize = reverse ? animationData.minTextSize : animationData.maxTextSize;
+    /**
+     * Binds an {@link ObjectAnimator} directly to the view through the typed
+     * {@link RotationAwareProperties}; no update listener is needed. <br />
+     * Size and margins are written to the layout params on every frame,
+     * regardless of the layout mode; each frame is applied in one view batch.
+     *
+     * @param view    the animated view
+     * @param reverse true to animate from max to min values
+     * @return the animator, also kept as this host's animator
+     */
+    public ObjectAnimator configurePropertyAnimator(RotationAwareTextView view, boolean reverse) {
+        AnimationSpec spec = getAnimationSpec();
+        if (spec == null) {
+            throw new IllegalStateException("Animation data is required.");
+        }
+        bind(view);
+        this.reverse = reverse;
 
-        int fromMarginLeft = reverse ? animationData.maxMarginLeft : animationData.minMarginLeft;
-        int toMarginLeft = reverse ? animationData.minMarginLeft : animationData.maxMarginLeft;
+        clearListeners();
 
-        int fromMarginTop = reverse ? animationData.maxMarginTop : animationData.minMarginTop;
-        int toMarginTop = reverse ? animationData.minMarginTop : animationData.maxMarginTop;
+        ObjectAnimator objectAnimator = ObjectAnimator.ofPropertyValuesHolder(view,
+                // holders are set in order, so every frame is applied in one batch
+                PropertyValuesHolder.ofInt(RotationAwareProperties.BATCH_BEGIN, 0, 0),
+                ofColor(RotationAwareProperties.TEXT_COLOR, spec, AnimationSpec.CHANNEL_TEXT_COLOR, reverse),
+                ofColor(RotationAwareProperties.SHADOW_COLOR, spec, AnimationSpec.CHANNEL_SHADOW_COLOR, reverse),
+                ofColor(RotationAwareProperties.BACKGROUND_COLOR, spec, AnimationSpec.CHANNEL_BACKGROUND_COLOR, reverse),
+                PropertyValuesHolder.ofFloat(RotationAwareProperties.ROTATION,
+                        spec.getEnd(AnimationSpec.CHANNEL_ROTATION, !reverse),
+                        spec.getEnd(AnimationSpec.CHANNEL_ROTATION, reverse)),
+                ofInt(RotationAwareProperties.SHADOW_RADIUS, spec, AnimationSpec.CHANNEL_SHADOW_RADIUS, reverse),
+                ofInt(RotationAwareProperties.TEXT_SIZE, spec, AnimationSpec.CHANNEL_TEXT_SIZE, reverse),
+                ofInt(RotationAwareProperties.MARGIN_LEFT, spec, AnimationSpec.CHANNEL_MARGIN_LEFT, reverse),
+                ofInt(RotationAwareProperties.MARGIN_TOP, spec, AnimationSpec.CHANNEL_MARGIN_TOP, reverse),
+                ofInt(RotationAwareProperties.MARGIN_RIGHT, spec, AnimationSpec.CHANNEL_MARGIN_RIGHT, reverse),
+                ofInt(RotationAwareProperties.MARGIN_BOTTOM, spec, AnimationSpec.CHANNEL_MARGIN_BOTTOM, reverse),
+                ofInt(RotationAwareProperties.WIDTH, spec, AnimationSpec.CHANNEL_WIDTH, reverse),
+                ofInt(RotationAwareProperties.HEIGHT, spec, AnimationSpec.CHANNEL_HEIGHT, reverse),
+                PropertyValuesHolder.ofInt(RotationAwareProperties.BATCH_COMMIT, 0, 0));
 
-        int fromMarginRight = reverse ? animationData.maxMarginRight : animationData.minMarginRight;
-        int toMarginRight = reverse ? animationData.minMarginRight : animationData.maxMarginRight;
+        animator = objectAnimator;
+        return objectAnimator;
+    }
 
-        int fromMarginBottom = reverse ? animationData.maxMarginBottom : animationData.minMarginBottom;
-        int toMarginBottom = reverse ? animationData.minMarginBottom : animationData.maxMarginBottom;
+    private static PropertyValuesHolder ofInt(RotationAwareProperties.IntChannel property,
+                                              AnimationSpec spec, int channel, boolean reverse) {
+        return PropertyValuesHolder.ofInt(property, spec.getEnd(channel, !reverse), spec.getEnd(channel, reverse));
+    }
 
-        int fromShadowColor = reverse ? animationData.maxShadowColor : animationData.minShadowColor;
-        int toShadowColor = reverse ? animationData.minShadowColor : animationData.maxShadowColor;
+    private static PropertyValuesHolder ofColor(RotationAwareProperties.IntChannel property,
+                                                AnimationSpec spec, int channel, boolean reverse) {
+        return PropertyValuesHolder.ofObject(property, ARGB_EVALUATOR,
+                spec.getEnd(channel, !reverse), spec.getEnd(channel, reverse));
+    }
 
-        int fromShadowRadius = reverse ? animationData.maxShadowRadius : animationData.minShadowRadius;
-        int toShadowRadius = reverse ? animationData.minShadowRadius : animationData.maxShadowRadius;
+    /**
+     * Applies the state found at the given fraction, synchronously and without an animator.
+     * Meant to follow scroll offsets or drag gestures; every call applies the state,
+     * as an animation may have moved the view since the last one, and the resulting
+     * invalidation and layout requests are coalesced into the next frame.
+     * A running animation is ended first. <br />
+     * The layout mode, scaled text size and hardware layer options do not apply here.
+     *
+     * @param view     the view to update
+     * @param fraction 0 for the original state, 1 for the target state; clamped to that range
+     */
+    public void setProgress(RotationAwareTextView view, float fraction) {
+        AnimationSpec spec = getAnimationSpec();
+        if (spec == null) {
+            throw new IllegalStateException("Animation data is required.");
+        }
+        if (animator != null && animator.isRunning()) {
+            clearListeners();
+        }
+        if (progressListener == null
+                || progressListener.getView() != view
+                || progressListener.getAnimationSpec() != spec) {
+            if (progressListener != null) {
+                progressListener.clear();
+            }
+            progressListener = new FrameUpdateListener(view, spec, false);
+        }
+        fraction = fraction < 0 ? 0 : fraction > 1 ? 1 : fraction;
+        progress = fraction;
+        progressListener.update(fraction);
+    }
 
-        PropertyValuesHolder
-                pvhTextColor = PropertyValuesHolder.ofObject(RotationAware.TEXT_COLOR, new ArgbEvaluator(), fromTextColor, toTextColor),
-                pvhShadowColor = PropertyValuesHolder.ofObject(RotationAware.SHADOW_COLOR, new ArgbEvaluator(), fromShadowColor, toShadowColor),
-                pvhBackgroundColor = PropertyValuesHolder.ofObject(RotationAware.BACKGROUND_COLOR, new ArgbEvaluator(), fromBackgroundColor, toBackgroundColor),
-                pvhRotation = PropertyValuesHolder.ofFloat(RotationAware.ROTATION, fromRotation, toRotation),
-                pvhShadowRadius = PropertyValuesHolder.ofInt(RotationAware.SHADOW_RADIUS, fromShadowRadius, toShadowRadius),
-                pvhTextSize = PropertyValuesHolder.ofInt(RotationAware.TEXT_SIZE, fromTextSize, toTextSize),
-                pvhMarginLeft = PropertyValuesHolder.ofInt(RotationAware.MARGIN_LEFT, fromMarginLeft, toMarginLeft),
-                pvhMarginTop = PropertyValuesHolder.ofInt(RotationAware.MARGIN_TOP, fromMarginTop, toMarginTop),
-                pvhMarginRight = PropertyValuesHolder.ofInt(RotationAware.MARGIN_RIGHT, fromMarginRight, toMarginRight),
-                pvhMarginBottom = PropertyValuesHolder.ofInt(RotationAware.MARGIN_BOTTOM, fromMarginBottom, toMarginBottom),
-                pvhWidth = PropertyValuesHolder.ofInt(RotationAware.WIDTH, fromWidth, toWidth),
-                pvhHeight = PropertyValuesHolder.ofInt(RotationAware.HEIGHT, fromHeight, toHeight);
+    /**
+     * @return the last fraction applied by {@link #setProgress(RotationAwareTextView, float)},
+     * or -1 if it was not called yet
+     */
+    public float getProgress() {
+        return progress;
+    }
 
-        clearListeners();
+    @Override
+    public RotationAwareUpdateListener createUpdateListener(RotationAwareTextView view) {
+        RotationAwareUpdateListener listener = newUpdateListener(view);
+        configureListener(listener, reverse);
+        return listener;
+    }
 
-        animator = ValueAnimator
-                .ofPropertyValuesHolder(
-                        pvhTextColor,
-                        pvhShadowColor,
-                        pvhBackgroundColor,
-                        pvhRotation,
-                        pvhShadowRadius,
-                        pvhTextSize,
-                        pvhMarginLeft,
-                        pvhMarginTop,
-                        pvhMarginRight,
-                        pvhMarginBottom,
-                        pvhWidth,
-                        pvhHeight);
+    /**
+     * Configures the listener for the current modes,
+     * using the end values for the given direction.
+     */
+    void configureListener(RotationAwareUpdateListener listener, boolean reverse) {
+        configureListener(listener, getAnimationSpec(), reverse, layoutMode, scaledTextSize, hardwareLayer);
+    }
 
-        return animator;
+    static void configureListener(RotationAwareUpdateListener listener, AnimationSpec spec, boolean reverse,
+                                  int layoutMode, boolean scaledTextSize, boolean hardwareLayer) {
+        if (hardwareLayer) {
+            listener.useHardwareLayer();
+        }
+        if (spec == null) {
+            return;
+        }
+        listener.setProgram(spec.getProgram());
+        if (scaledTextSize) {
+            listener.useScaledTextSize(spec.getEnd(AnimationSpec.CHANNEL_TEXT_SIZE, reverse));
+        }
+        if (layoutMode == LAYOUT_MODE_TRANSFORM) {
+            listener.useTransformBounds(
+                    spec.getEnd(AnimationSpec.CHANNEL_WIDTH, reverse),
+                    spec.getEnd(AnimationSpec.CHANNEL_HEIGHT, reverse),
+                    spec.getEnd(AnimationSpec.CHANNEL_MARGIN_LEFT, reverse),
+                    spec.getEnd(AnimationSpec.CHANNEL_MARGIN_TOP, reverse),
+                    spec.getEnd(AnimationSpec.CHANNEL_MARGIN_RIGHT, reverse),
+                    spec.getEnd(AnimationSpec.CHANNEL_MARGIN_BOTTOM, reverse));
+        }
+    }
+
+    /**
+     * Override to supply a different listener type.
+     * Mode specific configuration is done by {@link #createUpdateListener(RotationAwareTextView)}.
+     */
+    protected RotationAwareUpdateListener newUpdateListener(RotationAwareTextView view) {
+        return super.createUpdateListener(view);
     }
 
+    /**
+     * Ends a running animation, so its listeners see a single end, then detaches them. <br />
+     * A finished animator is not ended again: before API 24, {@link ValueAnimator#end()}
+     * on a finished animator replays start, the last frame and end.
+     */
     @Override
     public void clearListeners() {
         if (animator == null) {
             return;
         }
-        animator.end();
+        if (animator.isStarted()) {
+            animator.end();
+        }
         ArrayList<Animator.AnimatorListener> listenersList = animator.getListeners();
         if (listenersList != null && listenersList.size() > 0) {
             for (Animator.AnimatorListener listener : listenersList) {
@@ -113,10 +316,17 @@ public class DefaultRotationAnimatorHost extends RotationAnimatorHost {
     @Override
     public void clear() {
         this.animationData = null;
+        this.animationSpec = null;
+        if (progressListener != null) {
+            progressListener.clear();
+            progressListener = null;
+            progress = -1;
+        }
         if (animator != null) {
             clearListeners();
             animator = null;
         }
+        bind(null);
     }
 
 }
\ No newline at end of file
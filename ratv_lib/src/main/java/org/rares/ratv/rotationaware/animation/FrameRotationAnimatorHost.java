@@ -0,0 +1,52 @@
+package org.rares.ratv.rotationaware.animation;
+
+import android.animation.ValueAnimator;
+import android.support.annotation.NonNull;
+
+import org.rares.ratv.rotationaware.RotationAwareTextView;
+
+/**
+ * {@link RotationAnimatorHost} that animates a single fraction
+ * and computes every channel from it, in a {@link FrameUpdateListener}. <br />
+ * Unlike {@link DefaultRotationAnimatorHost}, it does not use
+ * {@link android.animation.PropertyValuesHolder}s or evaluators,
+ * so the frame path does not allocate. The animator is reused between runs.
+ */
+public class FrameRotationAnimatorHost extends DefaultRotationAnimatorHost {
+
+    public FrameRotationAnimatorHost(@NonNull AnimationDTO animationData) {
+        super(animationData);
+    }
+
+    public FrameRotationAnimatorHost(@NonNull AnimationSpec animationSpec) {
+        super(animationSpec);
+    }
+
+    @Override
+    public ValueAnimator configureAnimator(boolean reverse) {
+        if (getAnimationSpec() == null) {
+            throw new IllegalStateException("Animation data is required.");
+        }
+        this.reverse = reverse;
+
+        clearListeners();
+
+        if (animator == null) {
+            animator = ValueAnimator.ofFloat(0F, 1F);
+        }
+        return animator;
+    }
+
+    @Override
+    protected RotationAwareUpdateListener newUpdateListener(RotationAwareTextView view) {
+        return new FrameUpdateListener(view, getAnimationSpec(), reverse);
+    }
+
+    @Override
+    public void clearListeners() {
+        super.clearListeners();
+        if (animator != null) {
+            animator.removeAllUpdateListeners();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.rares.ratv.rotationaware.animation;
+
+import android.animation.ValueAnimator;
+
+import org.rares.ratv.rotationaware.RotationAwareTextView;
+
+/**
+ * Update listener that computes all values from the animated fraction
+ * into a reusable {@link RotationFrame}. <br />
+ * No string lookups and no boxing happen on the frame path,
+ * and only the channels that change are evaluated.
+ */
+public class FrameUpdateListener extends RotationAwareUpdateListener {
+
+    private final AnimationSpec animationSpec;
+    private final boolean reverse;
+
+    public FrameUpdateListener(RotationAwareTextView animatedView, AnimationSpec animationSpec, boolean reverse) {
+        super(animatedView);
+        this.animationSpec = animationSpec;
+        this.reverse = reverse;
+        setProgram(animationSpec.getProgram());
+    }
+
+    @Override
+    public void onAnimationUpdate(ValueAnimator animation) {
+        update(animation.getAnimatedFraction());
+    }
+
+    /**
+     * Computes and applies the frame found at the given fraction.
+     *
+     * @param fraction the (interpolated) animated fraction
+     */
+    public void update(float fraction) {
+        RotationAwareTextView animatedView = getView();
+        if (animatedView == null) {
+            return;
+        }
+        getProgram().evaluate(frame, reverse, fraction);
+        apply(animatedView, frame);
+    }
+
+    /**
+     * @return the animation values this listener evaluates
+     */
+    public AnimationSpec getAnimationSpec() {
+        return animationSpec;
+    }
+}
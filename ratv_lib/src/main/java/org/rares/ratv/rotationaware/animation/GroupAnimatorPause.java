@@ -0,0 +1,162 @@
+package org.rares.ratv.rotationaware.animation;
+
+import android.animation.ValueAnimator;
+
+import org.rares.ratv.rotationaware.RotationAwareTextView;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+
+/**
+ * Pauses the animator shared by a group while none of its members can be seen,
+ * and resumes it once one of them can. <br />
+ * Every member view is bound to a {@link MemberHost}, which the view pauses
+ * and resumes on attach and visibility changes, like the host of a single view.
+ * Members are assumed visible when they are added.
+ */
+final class GroupAnimatorPause {
+
+    private final ValueAnimator animator;
+    private final ArrayList<MemberHost> hosts = new ArrayList<>();
+    private int hiddenCount = 0;
+
+    private boolean reverse = false;
+    private boolean paused = false;
+    private long pausedPlayTime;
+
+    GroupAnimatorPause(ValueAnimator animator) {
+        this.animator = animator;
+    }
+
+    void add(RotationAwareTextView view) {
+        for (int i = 0; i < hosts.size(); i++) {
+            if (hosts.get(i).view.get() == view) {
+                return;
+            }
+        }
+        MemberHost host = new MemberHost(this, view);
+        host.bind(view);
+        hosts.add(host);
+    }
+
+    void remove(RotationAwareTextView view) {
+        for (int i = hosts.size() - 1; i >= 0; i--) {
+            MemberHost host = hosts.get(i);
+            if (host.view.get() == view) {
+                if (host.hidden) {
+                    hiddenCount--;
+                }
+                host.bind(null);
+                hosts.remove(i);
+            }
+        }
+        update();
+    }
+
+    void clear() {
+        for (int i = 0; i < hosts.size(); i++) {
+            hosts.get(i).bind(null);
+        }
+        hosts.clear();
+        hiddenCount = 0;
+        paused = false;
+    }
+
+    /**
+     * Called before the group starts or turns around its animator.
+     * A paused animation is dropped, the new one is paused again if nothing can be seen.
+     *
+     * @param reverse true if the animator is about to play backwards
+     */
+    void onAnimate(boolean reverse) {
+        this.reverse = reverse;
+        paused = false;
+    }
+
+    /**
+     * Pauses or resumes the animator for the current member visibility.
+     */
+    void update() {
+        boolean hidden = hosts.size() > 0 && hiddenCount == hosts.size();
+        if (hidden && !paused && animator.isRunning()) {
+            pausedPlayTime = animator.getCurrentPlayTime();
+            paused = true;
+            animator.cancel();
+        } else if (!hidden && paused) {
+            paused = false;
+            if (reverse) {
+                animator.reverse();
+            } else {
+                animator.start();
+            }
+            animator.setCurrentPlayTime(pausedPlayTime);
+        }
+    }
+
+    /**
+     * Reports the visibility of one member view to the group.
+     * It does not animate the view by itself.
+     */
+    static final class MemberHost extends RotationAnimatorHost {
+        private final GroupAnimatorPause owner;
+        private final WeakReference<RotationAwareTextView> view;
+        private boolean hidden = false;
+
+        MemberHost(GroupAnimatorPause owner, RotationAwareTextView view) {
+            this.owner = owner;
+            this.view = new WeakReference<>(view);
+        }
+
+        @Override
+        public void pause() {
+            if (hidden) {
+                return;
+            }
+            hidden = true;
+            owner.hiddenCount++;
+            owner.update();
+        }
+
+        @Override
+        public void resume() {
+            if (!hidden) {
+                return;
+            }
+            hidden = false;
+            owner.hiddenCount--;
+            owner.update();
+        }
+
+        /**
+         * The group decides where its animation is, so the view resumes with it.
+         */
+        @Override
+        public void finish() {
+            resume();
+        }
+
+        @Override
+        public boolean isPaused() {
+            return hidden;
+        }
+
+        @Override
+        public ValueAnimator configureAnimator(boolean reverse) {
+            return owner.animator;
+        }
+
+        @Override
+        public void animate(RotationAwareTextView view, boolean reverse, long duration) {
+            throw new UnsupportedOperationException("The view is animated by its group.");
+        }
+
+        @Override
+        public void clear() {
+            bind(null);
+        }
+
+        @Override
+        public void clearListeners() {
+        }
+    }
+}
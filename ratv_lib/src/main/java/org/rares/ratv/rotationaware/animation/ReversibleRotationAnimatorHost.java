@@ -0,0 +1,109 @@
+package org.rares.ratv.rotationaware.animation;
+
+import android.animation.ValueAnimator;
+import android.support.annotation.NonNull;
+
+import org.rares.ratv.rotationaware.RotationAwareTextView;
+
+/**
+ * {@link RotationAnimatorHost} that builds its animator and listener
+ * once per {@link AnimationDTO} / {@link AnimationSpec} and reverses them in place. <br />
+ * A call to {@link #animate(RotationAwareTextView, boolean, long)} while
+ * the animation is running turns it around from the current fraction,
+ * taking as long as it already ran, instead of snapping to the end state.
+ * Toggling does not allocate.
+ */
+public class ReversibleRotationAnimatorHost extends FrameRotationAnimatorHost {
+
+    private FrameUpdateListener listener;
+
+    public ReversibleRotationAnimatorHost(@NonNull AnimationDTO animationData) {
+        super(animationData);
+    }
+
+    public ReversibleRotationAnimatorHost(@NonNull AnimationSpec animationSpec) {
+        super(animationSpec);
+    }
+
+    @Override
+    public void updateAnimationData(AnimationDTO data) {
+        detach();
+        super.updateAnimationData(data);
+    }
+
+    @Override
+    public void updateAnimationSpec(AnimationSpec spec) {
+        detach();
+        super.updateAnimationSpec(spec);
+    }
+
+    @Override
+    public void animate(RotationAwareTextView view, boolean reverse, long duration) {
+        if (getAnimationSpec() == null) {
+            throw new IllegalStateException("Animation data is required.");
+        }
+        bind(view);
+        if (animator == null) {
+            animator = ValueAnimator.ofFloat(0F, 1F);
+        }
+        if (listener == null || listener.getView() != view) {
+            detach();
+            // the animator plays backwards by itself, so values are always evaluated forward
+            listener = new FrameUpdateListener(view, getAnimationSpec(), false);
+            animator.addUpdateListener(listener);
+            animator.addListener(listener);
+        }
+
+        boolean changed = this.reverse != reverse;
+        this.reverse = reverse;
+        configureListener(listener, reverse);
+
+        if (animator.isRunning()) {
+            if (changed) {
+                listener.applyEndState();
+                animator.reverse();
+            }
+            return;
+        }
+
+        animator.setDuration(duration);
+        if (reverse) {
+            animator.reverse();
+        } else {
+            animator.start();
+        }
+    }
+
+    @Override
+    protected boolean isPlayingBackwards() {
+        return reverse;
+    }
+
+    /**
+     * @return true if the last requested direction was backwards
+     */
+    public boolean isReverse() {
+        return reverse;
+    }
+
+    /**
+     * Stops the animation where it is, without jumping
+     * to the end values, and removes the listener.
+     */
+    @Override
+    public void clearListeners() {
+        detach();
+    }
+
+    private void detach() {
+        if (animator != null) {
+            animator.cancel();
+            animator.removeAllUpdateListeners();
+            animator.removeAllListeners();
+        }
+        if (listener != null) {
+            listener.clear();
+            listener = null;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package org.rares.ratv.rotationaware.animation;
+
+import android.animation.Animator;
+import android.animation.ValueAnimator;
+import android.support.annotation.NonNull;
+
+import org.rares.ratv.rotationaware.RotationAwareTextView;
+
+import java.util.ArrayList;
+
+/**
+ * Drives the animations of many {@link RotationAwareTextView}s
+ * with a single {@link ValueAnimator}. <br />
+ * Each member keeps its own {@link AnimationSpec}; on every frame the
+ * shared fraction is evaluated and applied to all members in one pass,
+ * so the animation framework sees one animator and one listener chain
+ * no matter how many views are flipped. Like {@link ReversibleRotationAnimatorHost},
+ * a running group is reversed in place. <br />
+ * The members are bound to the group: while none of them is attached and shown,
+ * the shared animator is paused, and it resumes once one of them can be seen again.
+ */
+public class RotationAnimationGroup implements ValueAnimator.AnimatorUpdateListener, Animator.AnimatorListener {
+
+    private final ValueAnimator animator = ValueAnimator.ofFloat(0F, 1F);
+    private final GroupAnimatorPause pause = new GroupAnimatorPause(animator);
+    private final ArrayList<FrameUpdateListener> members = new ArrayList<>();
+
+    private boolean reverse = false;
+
+    private int layoutMode = DefaultRotationAnimatorHost.LAYOUT_MODE_PER_FRAME;
+    private boolean scaledTextSize = false;
+    private boolean hardwareLayer = false;
+
+    public RotationAnimationGroup() {
+        animator.addUpdateListener(this);
+        animator.addListener(this);
+    }
+
+    /**
+     * Adds a view to the group. Should not be called while the group is running.
+     *
+     * @param view          the animated view
+     * @param animationSpec the values this view animates between; shared, not copied
+     */
+    public void add(@NonNull RotationAwareTextView view, @NonNull AnimationSpec animationSpec) {
+        // the animator plays backwards by itself, so values are always evaluated forward
+        members.add(new FrameUpdateListener(view, animationSpec, false));
+        pause.add(view);
+    }
+
+    /**
+     * Adds a view to the group. Should not be called while the group is running.
+     *
+     * @param view          the animated view
+     * @param animationData the values this view animates between
+     */
+    public void add(@NonNull RotationAwareTextView view, @NonNull AnimationDTO animationData) {
+        add(view, AnimationSpec.from(animationData).intern());
+    }
+
+    /**
+     * Adds a view to the group, using its own animation values.
+     *
+     * @param view the animated view
+     */
+    public void add(@NonNull RotationAwareTextView view) {
+        add(view, view.gatherAnimationSpec());
+    }
+
+    /**
+     * Removes a view from the group.
+     *
+     * @param view the view to remove
+     * @return true if the view was a member of this group
+     */
+    public boolean remove(RotationAwareTextView view) {
+        for (int i = members.size() - 1; i >= 0; i--) {
+            FrameUpdateListener member = members.get(i);
+            if (member.getView() == view) {
+                member.clear();
+                members.remove(i);
+                pause.remove(view);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * Starts or turns around the animation of all members.
+     *
+     * @param reverse  true means the animation is running backwards.
+     * @param duration animation duration, in milliseconds; ignored while running
+     */
+    public void animate(boolean reverse, long duration) {
+        boolean changed = this.reverse != reverse;
+        this.reverse = reverse;
+        for (int i = 0; i < members.size(); i++) {
+            FrameUpdateListener member = members.get(i);
+            DefaultRotationAnimatorHost.configureListener(
+                    member, member.getAnimationSpec(), reverse, layoutMode, scaledTextSize, hardwareLayer);
+        }
+
+        pause.onAnimate(reverse);
+        if (animator.isRunning()) {
+            if (changed) {
+                for (int i = 0; i < members.size(); i++) {
+                    members.get(i).applyEndState();
+                }
+                animator.reverse();
+            }
+            return;
+        }
+
+        animator.setDuration(duration);
+        if (reverse) {
+            animator.reverse();
+        } else {
+            animator.start();
+        }
+        pause.update();
+    }
+
+    /**
+     * @return the animator shared by all members
+     */
+    public ValueAnimator getAnimator() {
+        return animator;
+    }
+
+    /**
+     * @see DefaultRotationAnimatorHost#setLayoutMode(int)
+     */
+    public void setLayoutMode(int layoutMode) {
+        this.layoutMode = layoutMode;
+    }
+
+    public int getLayoutMode() {
+        return layoutMode;
+    }
+
+    /**
+     * @see DefaultRotationAnimatorHost#setScaledTextSize(boolean)
+     */
+    public void setScaledTextSize(boolean scaledTextSize) {
+        this.scaledTextSize = scaledTextSize;
+    }
+
+    public boolean isScaledTextSize() {
+        return scaledTextSize;
+    }
+
+    /**
+     * @see DefaultRotationAnimatorHost#setHardwareLayer(boolean)
+     */
+    public void setHardwareLayer(boolean hardwareLayer) {
+        this.hardwareLayer = hardwareLayer;
+    }
+
+    public boolean isHardwareLayer() {
+        return hardwareLayer;
+    }
+
+    @Override
+    public void onAnimationUpdate(ValueAnimator animation) {
+        float fraction = animation.getAnimatedFraction();
+        for (int i = 0; i < members.size(); i++) {
+            members.get(i).update(fraction);
+        }
+    }
+
+    @Override
+    public void onAnimationStart(Animator animation) {
+        for (int i = 0; i < members.size(); i++) {
+            members.get(i).onAnimationStart(animation);
+        }
+    }
+
+    @Override
+    public void onAnimationEnd(Animator animation) {
+        for (int i = 0; i < members.size(); i++) {
+            members.get(i).onAnimationEnd(animation);
+        }
+    }
+
+    @Override
+    public void onAnimationCancel(Animator animation) {
+        for (int i = 0; i < members.size(); i++) {
+            members.get(i).onAnimationCancel(animation);
+        }
+    }
+
+    @Override
+    public void onAnimationRepeat(Animator animation) {
+    }
+
+    /**
+     * Stops the animation where it is and removes all members.
+     */
+    public void clear() {
+        pause.clear();
+        animator.cancel();
+        for (int i = 0; i < members.size(); i++) {
+            members.get(i).clear();
+        }
+        members.clear();
+    }
+}
@@ -2,13 +2,24 @@ package org.rares.ratv.rotationaware.animation;
 
 import android.animation.ValueAnimator;
 
+import org.rares.ratv.rotationaware.RotationAwareTextView;
+
+import java.lang.ref.WeakReference;
+
 /**
- * Class that encapsulates animation data.
+ * Class that encapsulates animation data. <br />
+ * The host binds itself to the view it animates, so the view can
+ * {@link #pause()} it while detached or hidden and {@link #resume()} it afterwards.
  */
 public abstract class RotationAnimatorHost {
     public ValueAnimator animator;
 
     AnimationDTO animationData;
+    AnimationSpec animationSpec;
+
+    private WeakReference<RotationAwareTextView> boundView;
+    private boolean paused = false;
+    private long pausedPlayTime;
 
     /**
      * Sets new animation data.
@@ -16,6 +27,27 @@ public abstract class RotationAnimatorHost {
      */
     public void updateAnimationData(AnimationDTO data){
         animationData = data;
+        animationSpec = null;
+    }
+
+    /**
+     * Sets new animation values. The spec is used as it is, without copying.
+     * @param spec animation values
+     */
+    public void updateAnimationSpec(AnimationSpec spec) {
+        animationSpec = spec;
+        animationData = null;
+    }
+
+    /**
+     * @return the current animation values as a spec,
+     * converted (once) from the animation data if needed.
+     */
+    public AnimationSpec getAnimationSpec() {
+        if (animationSpec == null && animationData != null) {
+            animationSpec = AnimationSpec.from(animationData).intern();
+        }
+        return animationSpec;
     }
 
     /**
@@ -25,6 +57,114 @@ public abstract class RotationAnimatorHost {
      */
     public abstract ValueAnimator configureAnimator(boolean reverse);
 
+    /**
+     * Creates the listener that applies the animated values to the view.
+     * Should be called after {@link #configureAnimator(boolean)}.
+     * @param view the animated view
+     * @return a new update listener
+     */
+    public RotationAwareUpdateListener createUpdateListener(RotationAwareTextView view) {
+        return new RotationAwareUpdateListener(view);
+    }
+
+    /**
+     * Configures and starts an animation for the given view.
+     * @param view     the animated view
+     * @param reverse  true means the animation is running backwards.
+     * @param duration animation duration, in milliseconds
+     */
+    public void animate(RotationAwareTextView view, boolean reverse, long duration) {
+        bind(view);
+        ValueAnimator configured = configureAnimator(reverse).setDuration(duration);
+        RotationAwareUpdateListener updateListener = createUpdateListener(view);
+        configured.addUpdateListener(updateListener);
+        configured.addListener(updateListener);
+        configured.start();
+    }
+
+    /**
+     * Makes this host the one the view pauses and resumes,
+     * releasing the view it was previously bound to. Clears the paused state.
+     * @param view the view about to be animated
+     */
+    protected void bind(RotationAwareTextView view) {
+        paused = false;
+        RotationAwareTextView previous = boundView == null ? null : boundView.get();
+        if (previous == view) {
+            return;
+        }
+        if (previous != null && previous.getAnimatorHost() == this) {
+            previous.setAnimatorHost(null);
+        }
+        boundView = view == null ? null : new WeakReference<>(view);
+        if (view != null) {
+            view.setAnimatorHost(this);
+        }
+    }
+
+    /**
+     * Stops a running animation and remembers where it was,
+     * so no frame callbacks happen until {@link #resume()} or {@link #finish()}.
+     * The mode specific state of the view (layer type, snapshot...) is released,
+     * as on cancel. Does nothing if the animation is not running.
+     */
+    public void pause() {
+        if (paused || animator == null || !animator.isRunning()) {
+            return;
+        }
+        pausedPlayTime = animator.getCurrentPlayTime();
+        paused = true;
+        animator.cancel();
+    }
+
+    /**
+     * Restarts a paused animation from where it was paused.
+     */
+    public void resume() {
+        if (!paused || animator == null) {
+            return;
+        }
+        paused = false;
+        if (isPlayingBackwards()) {
+            animator.reverse();
+        } else {
+            animator.start();
+        }
+        animator.setCurrentPlayTime(pausedPlayTime);
+    }
+
+    /**
+     * Applies the end state of a paused animation, without playing the rest of it.
+     */
+    public void finish() {
+        if (!paused || animator == null) {
+            return;
+        }
+        paused = false;
+        if (isPlayingBackwards()) {
+            animator.reverse();
+        } else {
+            animator.start();
+        }
+        animator.end();
+    }
+
+    /**
+     * @return true if the animation was paused and not resumed or finished yet
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Hosts that turn their animator around with
+     * {@link ValueAnimator#reverse()} return the current direction here.
+     * @return true if the animator plays from its end values to its start values
+     */
+    protected boolean isPlayingBackwards() {
+        return false;
+    }
+
     /**
      * Implement this method if you have any references
      * that need to be cleared when the animator is no longer used.
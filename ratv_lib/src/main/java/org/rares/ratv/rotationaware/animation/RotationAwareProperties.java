@@ -0,0 +1,266 @@
+package org.rares.ratv.rotationaware.animation;
+
+import android.util.Property;
+import android.view.ViewGroup;
+
+import org.rares.ratv.rotationaware.RotationAwareTextView;
+
+/**
+ * Typed {@link Property} definitions for every animatable channel
+ * of {@link RotationAwareTextView}, named after the terms in {@link RotationAware}. <br />
+ * Used with {@link android.animation.ObjectAnimator} or
+ * {@link android.animation.PropertyValuesHolder}, they are called directly,
+ * without reflective setter lookup and without an update listener. <br />
+ * An animator sets its values in the order of its holders. Put a holder of
+ * {@link #BATCH_BEGIN} first and one of {@link #BATCH_COMMIT} last, as
+ * {@link DefaultRotationAnimatorHost#configurePropertyAnimator(RotationAwareTextView, boolean)} does,
+ * and each frame is applied in one view batch: one layout request, one shadow
+ * update and one invalidation, however many channels change.
+ */
+public final class RotationAwareProperties {
+
+    private RotationAwareProperties() {
+    }
+
+    /**
+     * Property over an int value. Subclasses implement the primitive accessors.
+     */
+    public abstract static class IntChannel extends Property<RotationAwareTextView, Integer> {
+
+        public IntChannel(String name) {
+            super(Integer.class, name);
+        }
+
+        public abstract void setValue(RotationAwareTextView view, int value);
+
+        public abstract int getValue(RotationAwareTextView view);
+
+        @Override
+        public final void set(RotationAwareTextView view, Integer value) {
+            setValue(view, value);
+        }
+
+        @Override
+        public final Integer get(RotationAwareTextView view) {
+            return getValue(view);
+        }
+    }
+
+    /**
+     * Property over a float value. Subclasses implement the primitive accessors.
+     */
+    public abstract static class FloatChannel extends Property<RotationAwareTextView, Float> {
+
+        public FloatChannel(String name) {
+            super(Float.class, name);
+        }
+
+        public abstract void setValue(RotationAwareTextView view, float value);
+
+        public abstract float getValue(RotationAwareTextView view);
+
+        @Override
+        public final void set(RotationAwareTextView view, Float value) {
+            setValue(view, value);
+        }
+
+        @Override
+        public final Float get(RotationAwareTextView view) {
+            return getValue(view);
+        }
+    }
+
+    /**
+     * Starts a view batch, see {@link RotationAwareTextView#beginBatch()}. The value is ignored.
+     */
+    public static final IntChannel BATCH_BEGIN = new IntChannel("batchBegin") {
+        @Override
+        public void setValue(RotationAwareTextView view, int value) {
+            view.beginBatch();
+        }
+
+        @Override
+        public int getValue(RotationAwareTextView view) {
+            return 0;
+        }
+    };
+
+    /**
+     * Commits the view batch started by {@link #BATCH_BEGIN}. The value is ignored.
+     */
+    public static final IntChannel BATCH_COMMIT = new IntChannel("batchCommit") {
+        @Override
+        public void setValue(RotationAwareTextView view, int value) {
+            view.commitBatch();
+        }
+
+        @Override
+        public int getValue(RotationAwareTextView view) {
+            return 0;
+        }
+    };
+
+    public static final FloatChannel ROTATION = new FloatChannel(RotationAware.ROTATION) {
+        @Override
+        public void setValue(RotationAwareTextView view, float value) {
+            view.setRotation(value);
+        }
+
+        @Override
+        public float getValue(RotationAwareTextView view) {
+            return view.getRotation();
+        }
+    };
+
+    public static final IntChannel WIDTH = new IntChannel(RotationAware.WIDTH) {
+        @Override
+        public void setValue(RotationAwareTextView view, int value) {
+            ViewGroup.LayoutParams lp = view.getLayoutParams();
+            if (lp != null && lp.width != value) {
+                lp.width = value;
+                view.requestLayout();
+            }
+        }
+
+        @Override
+        public int getValue(RotationAwareTextView view) {
+            ViewGroup.LayoutParams lp = view.getLayoutParams();
+            return lp == null ? view.getWidth() : lp.width;
+        }
+    };
+
+    public static final IntChannel HEIGHT = new IntChannel(RotationAware.HEIGHT) {
+        @Override
+        public void setValue(RotationAwareTextView view, int value) {
+            ViewGroup.LayoutParams lp = view.getLayoutParams();
+            if (lp != null && lp.height != value) {
+                lp.height = value;
+                view.requestLayout();
+            }
+        }
+
+        @Override
+        public int getValue(RotationAwareTextView view) {
+            ViewGroup.LayoutParams lp = view.getLayoutParams();
+            return lp == null ? view.getHeight() : lp.height;
+        }
+    };
+
+    public static final IntChannel BACKGROUND_COLOR = new IntChannel(RotationAware.BACKGROUND_COLOR) {
+        @Override
+        public void setValue(RotationAwareTextView view, int value) {
+            view.setBackgroundColor(value);
+        }
+
+        @Override
+        public int getValue(RotationAwareTextView view) {
+            return view.getBackgroundColor();
+        }
+    };
+
+    public static final IntChannel TEXT_COLOR = new IntChannel(RotationAware.TEXT_COLOR) {
+        @Override
+        public void setValue(RotationAwareTextView view, int value) {
+            view.setTextColor(value);
+        }
+
+        @Override
+        public int getValue(RotationAwareTextView view) {
+            return view.getTextPaint().getColor();
+        }
+    };
+
+    public static final IntChannel TEXT_SIZE = new IntChannel(RotationAware.TEXT_SIZE) {
+        @Override
+        public void setValue(RotationAwareTextView view, int value) {
+            view.setTextSize(value);
+        }
+
+        @Override
+        public int getValue(RotationAwareTextView view) {
+            return view.getTextSize();
+        }
+    };
+
+    public static final IntChannel MARGIN_LEFT = new MarginChannel(RotationAware.MARGIN_LEFT, 0);
+    public static final IntChannel MARGIN_TOP = new MarginChannel(RotationAware.MARGIN_TOP, 1);
+    public static final IntChannel MARGIN_RIGHT = new MarginChannel(RotationAware.MARGIN_RIGHT, 2);
+    public static final IntChannel MARGIN_BOTTOM = new MarginChannel(RotationAware.MARGIN_BOTTOM, 3);
+
+    public static final IntChannel SHADOW_RADIUS = new IntChannel(RotationAware.SHADOW_RADIUS) {
+        @Override
+        public void setValue(RotationAwareTextView view, int value) {
+            view.setShadowRadius(value);
+            view.setShadowLayer();
+        }
+
+        @Override
+        public int getValue(RotationAwareTextView view) {
+            return view.getShadowRadius();
+        }
+    };
+
+    public static final IntChannel SHADOW_COLOR = new IntChannel(RotationAware.SHADOW_COLOR) {
+        @Override
+        public void setValue(RotationAwareTextView view, int value) {
+            view.setShadowColor(value);
+            view.setShadowLayer();
+        }
+
+        @Override
+        public int getValue(RotationAwareTextView view) {
+            return view.getShadowColor();
+        }
+    };
+
+    /**
+     * One side of the margins; does nothing if the view has no margin layout params.
+     */
+    private static class MarginChannel extends IntChannel {
+        private final int side;
+
+        MarginChannel(String name, int side) {
+            super(name);
+            this.side = side;
+        }
+
+        @Override
+        public void setValue(RotationAwareTextView view, int value) {
+            ViewGroup.LayoutParams lp = view.getLayoutParams();
+            if (!(lp instanceof ViewGroup.MarginLayoutParams)) {
+                return;
+            }
+            ViewGroup.MarginLayoutParams mlp = (ViewGroup.MarginLayoutParams) lp;
+            if (getValue(view) == value) {
+                return;
+            }
+            if (side == 0) {
+                mlp.leftMargin = value;
+            } else if (side == 1) {
+                mlp.topMargin = value;
+            } else if (side == 2) {
+                mlp.rightMargin = value;
+            } else {
+                mlp.bottomMargin = value;
+            }
+            view.requestLayout();
+        }
+
+        @Override
+        public int getValue(RotationAwareTextView view) {
+            ViewGroup.LayoutParams lp = view.getLayoutParams();
+            if (!(lp instanceof ViewGroup.MarginLayoutParams)) {
+                return 0;
+            }
+            ViewGroup.MarginLayoutParams mlp = (ViewGroup.MarginLayoutParams) lp;
+            if (side == 0) {
+                return mlp.leftMargin;
+            } else if (side == 1) {
+                return mlp.topMargin;
+            } else if (side == 2) {
+                return mlp.rightMargin;
+            }
+            return mlp.bottomMargin;
+        }
+    }
+}
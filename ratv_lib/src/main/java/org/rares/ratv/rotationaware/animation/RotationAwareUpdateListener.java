@@ -1,6 +1,8 @@
 package org.rares.ratv.rotationaware.animation;
 
+import android.animation.Animator;
 import android.animation.ValueAnimator;
+import android.view.View;
 import android.view.ViewGroup;
 
 import org.rares.ratv.rotationaware.RotationAwareTextView;
@@ -9,65 +11,376 @@ import java.lang.ref.WeakReference;
 
 /**
  * Default update listener. It holds a {@link WeakReference}
- * to the {@link RotationAwareTextView} that this updates.
+ * to the {@link RotationAwareTextView} that this updates. <br />
+ * By default the layout params are written on every frame.
+ * After {@link #useTransformBounds(int, int, int, int, int, int)}
+ * size and margins are drawn as transforms instead, and the layout
+ * params are committed only once, when the animation starts.
+ * After {@link #useScaledTextSize(int)} the text layout is built once,
+ * at the end text size, and intermediate sizes are drawn with a canvas scale. <br />
+ * Views that opted in with {@link RotationAwareTextView#setSnapshotWhileAnimating(boolean)}
+ * are switched to their bitmap snapshot for the duration of the animation. <br />
+ * After {@link #setProgram(AnimationProgram)} only the channels that change
+ * are read and applied on every frame; the constant ones are applied once. <br />
+ * After {@link #useHardwareLayer()} the view is promoted to a hardware layer
+ * while animating, and its previous layer type is restored afterwards. <br />
+ * For these modes to work, the listener has to be registered with
+ * {@link Animator#addListener(Animator.AnimatorListener)} as well.
  */
-public class RotationAwareUpdateListener implements ValueAnimator.AnimatorUpdateListener {
+public class RotationAwareUpdateListener implements ValueAnimator.AnimatorUpdateListener, Animator.AnimatorListener {
     protected WeakReference<RotationAwareTextView> viewReference;
 
+    protected final RotationFrame frame = new RotationFrame();
+
+    private boolean transformBounds = false;
+    private int endWidth;
+    private int endHeight;
+    private int endMarginLeft;
+    private int endMarginTop;
+    private int endMarginRight;
+    private int endMarginBottom;
+    //    true once the frame holds bounds drawn as a transform
+    private boolean transformApplied = false;
+
+    private boolean scaledTextSize = false;
+    private int endTextSize;
+
+    private boolean hardwareLayer = false;
+    private int previousLayerType = -1;
+
+    private AnimationProgram program;
+    private boolean constantsApplied = false;
+
     public RotationAwareUpdateListener(RotationAwareTextView animatedView) {
         viewReference = new WeakReference<>(animatedView);
     }
 
+    /**
+     * Switches this listener to transform mode. <br />
+     * The supplied values are committed to the layout params
+     * when the animation starts, and every frame is drawn
+     * as a scale / translation relative to them.
+     *
+     * @param width        layout width at the end of the animation
+     * @param height       layout height at the end of the animation
+     * @param marginLeft   left margin at the end of the animation
+     * @param marginTop    top margin at the end of the animation
+     * @param marginRight  right margin at the end of the animation
+     * @param marginBottom bottom margin at the end of the animation
+     */
+    public void useTransformBounds(int width, int height, int marginLeft, int marginTop, int marginRight, int marginBottom) {
+        transformBounds = true;
+        endWidth = width;
+        endHeight = height;
+        endMarginLeft = marginLeft;
+        endMarginTop = marginTop;
+        endMarginRight = marginRight;
+        endMarginBottom = marginBottom;
+    }
+
+    /**
+     * @return true if size and margins are drawn as transforms
+     */
+    public boolean isTransformBounds() {
+        return transformBounds;
+    }
+
+    /**
+     * Switches text size animation to canvas scaling. <br />
+     * When the animation starts, the text layout is built at the supplied size;
+     * it is rebuilt at the exact size once the animation ends.
+     *
+     * @param textSize the text size at the end of the animation
+     */
+    public void useScaledTextSize(int textSize) {
+        scaledTextSize = true;
+        endTextSize = textSize;
+    }
+
+    /**
+     * @return true if the text size is animated with a canvas scale
+     */
+    public boolean isScaledTextSize() {
+        return scaledTextSize;
+    }
+
+    /**
+     * Switches the view to {@link View#LAYER_TYPE_HARDWARE}
+     * when the animation starts and restores the previous
+     * layer type when it ends or is cancelled.
+     */
+    public void useHardwareLayer() {
+        hardwareLayer = true;
+    }
+
+    /**
+     * @return true if the view is promoted to a hardware layer while animating
+     */
+    public boolean isHardwareLayer() {
+        return hardwareLayer;
+    }
+
+    /**
+     * Restricts the frame path to the channels animated by the program. <br />
+     * The animator has to provide values for those channels only.
+     * Without a program, every channel the animator holds a value for is applied.
+     *
+     * @param program compiled animation values, or null to read and apply every channel
+     */
+    public void setProgram(AnimationProgram program) {
+        if (this.program != program) {
+            this.program = program;
+            constantsApplied = false;
+        }
+    }
+
+    /**
+     * @return the program restricting the frame path, or null
+     */
+    public AnimationProgram getProgram() {
+        return program;
+    }
+
     @Override
     public void onAnimationUpdate(ValueAnimator animation) {
-        RotationAwareTextView animatedView = viewReference.get();
-        float rotation = (float) animation.getAnimatedValue(RotationAware.ROTATION);
-        int width = (int) animation.getAnimatedValue(RotationAware.WIDTH);
-        int height = (int) animation.getAnimatedValue(RotationAware.HEIGHT);
-        int bgc = (int) animation.getAnimatedValue(RotationAware.BACKGROUND_COLOR);
-        int tc = (int) animation.getAnimatedValue(RotationAware.TEXT_COLOR);
-        int ts = (int) animation.getAnimatedValue(RotationAware.TEXT_SIZE);
-        int ml = (int) animation.getAnimatedValue(RotationAware.MARGIN_LEFT);
-        int mt = (int) animation.getAnimatedValue(RotationAware.MARGIN_TOP);
-        int mr = (int) animation.getAnimatedValue(RotationAware.MARGIN_RIGHT);
-        int mb = (int) animation.getAnimatedValue(RotationAware.MARGIN_BOTTOM);
-        int sr = (int) animation.getAnimatedValue(RotationAware.SHADOW_RADIUS);
-        int sc = (int) animation.getAnimatedValue(RotationAware.SHADOW_COLOR);
-
-        animatedView.setRotation(rotation);
-        ViewGroup.MarginLayoutParams mlp = null;
+        RotationAwareTextView animatedView = getView();
+        if (animatedView == null) {
+            return;
+        }
+        if (program != null) {
+            int mask = program.getMask();
+            if ((mask & 1 << AnimationSpec.CHANNEL_ROTATION) != 0) {
+                frame.rotation = (float) animation.getAnimatedValue(RotationAware.ROTATION);
+            }
+            for (int channel = AnimationSpec.CHANNEL_ROTATION + 1; channel < AnimationSpec.CHANNEL_COUNT; channel++) {
+                if ((mask & 1 << channel) != 0) {
+                    frame.set(channel, (int) animation.getAnimatedValue(AnimationProgram.PROPERTY_NAMES[channel]));
+                }
+            }
+            apply(animatedView, frame);
+            return;
+        }
+        // animators built elsewhere may not hold every channel
+        int mask = 0;
+        Object rotation = animation.getAnimatedValue(RotationAware.ROTATION);
+        if (rotation != null) {
+            frame.rotation = (float) rotation;
+            mask |= 1 << AnimationSpec.CHANNEL_ROTATION;
+        }
+        for (int channel = AnimationSpec.CHANNEL_ROTATION + 1; channel < AnimationSpec.CHANNEL_COUNT; channel++) {
+            Object value = animation.getAnimatedValue(AnimationProgram.PROPERTY_NAMES[channel]);
+            if (value != null) {
+                frame.set(channel, (int) value);
+                mask |= 1 << channel;
+            }
+        }
+
+        apply(animatedView, frame, mask);
+    }
+
+    /**
+     * Applies the values of a frame to the view, in a single batch
+     * (at most one invalidation and one layout request). <br />
+     * With a program, only its animated channels are applied;
+     * the constant ones are applied on the first frame of every run.
+     */
+    protected void apply(RotationAwareTextView animatedView, RotationFrame frame) {
+        if (program == null) {
+            apply(animatedView, frame, AnimationProgram.ALL_CHANNELS);
+            return;
+        }
+        int mask = program.getMask();
+        if (!constantsApplied) {
+            constantsApplied = true;
+            frame.evaluate(program.getSpec(), false, 0, program.getConstantMask());
+            mask = AnimationProgram.ALL_CHANNELS;
+        }
+        apply(animatedView, frame, mask);
+    }
+
+    /**
+     * Applies only the channels in the mask, in a single batch.
+     * Layout channels outside the mask keep their current values.
+     */
+    protected void apply(RotationAwareTextView animatedView, RotationFrame frame, int mask) {
+        animatedView.beginBatch();
+        animatedView.applyState(frame, mask);
+        int layoutMask = mask & AnimationProgram.LAYOUT_CHANNELS;
+        if (layoutMask != 0) {
+            if (layoutMask != AnimationProgram.LAYOUT_CHANNELS) {
+                seedBounds(animatedView, frame, mask);
+            }
+            applyBounds(animatedView, frame.width, frame.height,
+                    frame.marginLeft, frame.marginTop, frame.marginRight, frame.marginBottom);
+        }
+        animatedView.commitBatch();
+    }
+
+    /**
+     * Fills the layout channels missing from the mask with the values in effect,
+     * so they are written back unchanged: the end values in transform mode,
+     * the current layout params otherwise.
+     */
+    private void seedBounds(RotationAwareTextView animatedView, RotationFrame frame, int mask) {
+        if (transformBounds) {
+            seed(frame, mask, endWidth, endHeight, endMarginLeft, endMarginTop, endMarginRight, endMarginBottom);
+            return;
+        }
+        ViewGroup.LayoutParams layoutParams = animatedView.getLayoutParams();
+        if (layoutParams == null) {
+            return;
+        }
+        if (layoutParams instanceof ViewGroup.MarginLayoutParams) {
+            ViewGroup.MarginLayoutParams mlp = (ViewGroup.MarginLayoutParams) layoutParams;
+            seed(frame, mask, mlp.width, mlp.height, mlp.leftMargin, mlp.topMargin, mlp.rightMargin, mlp.bottomMargin);
+        } else {
+            seed(frame, mask, layoutParams.width, layoutParams.height, 0, 0, 0, 0);
+        }
+    }
+
+    private static void seed(RotationFrame frame, int mask, int width, int height, int ml, int mt, int mr, int mb) {
+        if ((mask & 1 << AnimationSpec.CHANNEL_WIDTH) == 0) {
+            frame.width = width;
+        }
+        if ((mask & 1 << AnimationSpec.CHANNEL_HEIGHT) == 0) {
+            frame.height = height;
+        }
+        if ((mask & 1 << AnimationSpec.CHANNEL_MARGIN_LEFT) == 0) {
+            frame.marginLeft = ml;
+        }
+        if ((mask & 1 << AnimationSpec.CHANNEL_MARGIN_TOP) == 0) {
+            frame.marginTop = mt;
+        }
+        if ((mask & 1 << AnimationSpec.CHANNEL_MARGIN_RIGHT) == 0) {
+            frame.marginRight = mr;
+        }
+        if ((mask & 1 << AnimationSpec.CHANNEL_MARGIN_BOTTOM) == 0) {
+            frame.marginBottom = mb;
+        }
+    }
+
+    /**
+     * Applies the animated size and margins, either through
+     * the layout params or as a transform.
+     */
+    protected void applyBounds(RotationAwareTextView animatedView, int width, int height, int ml, int mt, int mr, int mb) {
+        if (transformBounds) {
+            transformApplied = true;
+            // anchored at the top left corner, like most parents lay out their children
+            animatedView.setTransformBounds(
+                    endWidth > 0 ? (float) width / endWidth : 1F,
+                    endHeight > 0 ? (float) height / endHeight : 1F,
+                    ml - endMarginLeft,
+                    mt - endMarginTop);
+            return;
+        }
+        writeLayoutParams(animatedView, width, height, ml, mt, mr, mb);
+    }
+
+    private void writeLayoutParams(RotationAwareTextView animatedView, int width, int height, int ml, int mt, int mr, int mb) {
         ViewGroup.LayoutParams layoutParams = animatedView.getLayoutParams();
+        if (layoutParams == null) {
+            return;
+        }
         if (layoutParams instanceof ViewGroup.MarginLayoutParams) {
-            mlp = (ViewGroup.MarginLayoutParams) layoutParams;
+            ViewGroup.MarginLayoutParams mlp = (ViewGroup.MarginLayoutParams) layoutParams;
             mlp.leftMargin = ml;
             mlp.topMargin = mt;
             mlp.rightMargin = mr;
             mlp.bottomMargin = mb;
-
-            mlp.width = width;
-            mlp.height = height;
         }
 
         layoutParams.width = width;
         layoutParams.height = height;
 
-        animatedView.setTextColor(tc);
-        animatedView.setBackgroundColor(bgc);
-        animatedView.setTextSize(ts);
+        animatedView.setLayoutParams(layoutParams);
+    }
 
-        animatedView.setShadowRadius(sr);
-        animatedView.setShadowColor(sc);
-        animatedView.setShadowLayer();
+    protected RotationAwareTextView getView() {
+        return viewReference == null ? null : viewReference.get();
+    }
 
-        if (mlp != null) {
-            animatedView.setLayoutParams(mlp);
-        } else {
-            animatedView.setLayoutParams(layoutParams);
+    @Override
+    public void onAnimationStart(Animator animation) {
+        applyEndState();
+        RotationAwareTextView animatedView = getView();
+        if (animatedView == null) {
+            return;
+        }
+        if (hardwareLayer && previousLayerType == -1) {
+            previousLayerType = animatedView.getLayerType();
+            if (previousLayerType != View.LAYER_TYPE_HARDWARE) {
+                animatedView.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+            }
         }
+        animatedView.beginSnapshot();
+    }
+
+    /**
+     * Prepares the view for the end values of the enabled modes:
+     * commits the layout params in transform mode and builds
+     * the text layout at the end size in scaled text size mode.
+     */
+    void applyEndState() {
+        RotationAwareTextView animatedView = getView();
+        if (animatedView == null) {
+            return;
+        }
+        if (transformBounds) {
+            writeLayoutParams(animatedView, endWidth, endHeight, endMarginLeft, endMarginTop, endMarginRight, endMarginBottom);
+        }
+        if (scaledTextSize) {
+            animatedView.beginTextScale(endTextSize);
+        }
+    }
+
+    @Override
+    public void onAnimationEnd(Animator animation) {
+        constantsApplied = false;
+        transformApplied = false;
+        RotationAwareTextView animatedView = getView();
+        if (animatedView == null) {
+            return;
+        }
+        animatedView.endSnapshot();
+        if (previousLayerType != -1) {
+            if (previousLayerType != View.LAYER_TYPE_HARDWARE) {
+                animatedView.setLayerType(previousLayerType, null);
+            }
+            previousLayerType = -1;
+        }
+        if (transformBounds) {
+            animatedView.clearTransformBounds();
+        }
+        if (scaledTextSize) {
+            animatedView.endTextScale();
+        }
+        // joins the paint pool again, if the view opted in
+        animatedView.sharePaint();
+    }
+
+    /**
+     * In transform mode the layout params hold the end values,
+     * so the bounds of the last frame are written to them before the transform is cleared.
+     */
+    @Override
+    public void onAnimationCancel(Animator animation) {
+        RotationAwareTextView animatedView = getView();
+        if (transformApplied && animatedView != null) {
+            writeLayoutParams(animatedView, frame.width, frame.height,
+                    frame.marginLeft, frame.marginTop, frame.marginRight, frame.marginBottom);
+        }
+        onAnimationEnd(animation);
+    }
+
+    @Override
+    public void onAnimationRepeat(Animator animation) {
     }
 
     public void clear() {
-        viewReference.clear();
-        viewReference = null;
+        if (viewReference != null) {
+            viewReference.clear();
+            viewReference = null;
+        }
     }
-}
\ No newline at end of file
+}
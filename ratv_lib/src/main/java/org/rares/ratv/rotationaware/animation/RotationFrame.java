@@ -0,0 +1,167 @@
+package org.rares.ratv.rotationaware.animation;
+
+/**
+ * Reusable, primitive holder for the values of one animation frame. <br />
+ * Values are computed directly from the animated fraction,
+ * without boxing and without any allocation.
+ */
+public class RotationFrame {
+    public float rotation;
+    public int width;
+    public int height;
+    public int backgroundColor;
+    public int textColor;
+    public int textSize;
+    public int marginLeft;
+    public int marginTop;
+    public int marginRight;
+    public int marginBottom;
+    public int shadowRadius;
+    public int shadowColor;
+
+    /**
+     * Fills this frame with the values found at the given fraction.
+     *
+     * @param spec     animation values
+     * @param reverse  true means the animation is running from max to min values
+     * @param fraction the (interpolated) animated fraction
+     */
+    public void evaluate(AnimationSpec spec, boolean reverse, float fraction) {
+        evaluate(spec, reverse, fraction, AnimationProgram.ALL_CHANNELS);
+    }
+
+    /**
+     * Fills only the channels present in the mask, leaving the others untouched.
+     *
+     * @param spec     animation values
+     * @param reverse  true means the animation is running from max to min values
+     * @param fraction the (interpolated) animated fraction
+     * @param mask     bit c set means channel c is evaluated
+     * @see AnimationProgram
+     */
+    public void evaluate(AnimationSpec spec, boolean reverse, float fraction, int mask) {
+        float f = reverse ? 1 - fraction : fraction;
+        if (has(mask, AnimationSpec.CHANNEL_ROTATION)) {
+            int minRotation = spec.getMin(AnimationSpec.CHANNEL_ROTATION);
+            rotation = minRotation + (spec.getMax(AnimationSpec.CHANNEL_ROTATION) - minRotation) * f;
+        }
+        if (has(mask, AnimationSpec.CHANNEL_WIDTH)) {
+            width = lerp(spec, AnimationSpec.CHANNEL_WIDTH, f);
+        }
+        if (has(mask, AnimationSpec.CHANNEL_HEIGHT)) {
+            height = lerp(spec, AnimationSpec.CHANNEL_HEIGHT, f);
+        }
+        if (has(mask, AnimationSpec.CHANNEL_BACKGROUND_COLOR)) {
+            backgroundColor = lerpColor(spec, AnimationSpec.CHANNEL_BACKGROUND_COLOR, f);
+        }
+        if (has(mask, AnimationSpec.CHANNEL_TEXT_COLOR)) {
+            textColor = lerpColor(spec, AnimationSpec.CHANNEL_TEXT_COLOR, f);
+        }
+        if (has(mask, AnimationSpec.CHANNEL_TEXT_SIZE)) {
+            textSize = lerp(spec, AnimationSpec.CHANNEL_TEXT_SIZE, f);
+        }
+        if (has(mask, AnimationSpec.CHANNEL_MARGIN_LEFT)) {
+            marginLeft = lerp(spec, AnimationSpec.CHANNEL_MARGIN_LEFT, f);
+        }
+        if (has(mask, AnimationSpec.CHANNEL_MARGIN_TOP)) {
+            marginTop = lerp(spec, AnimationSpec.CHANNEL_MARGIN_TOP, f);
+        }
+        if (has(mask, AnimationSpec.CHANNEL_MARGIN_RIGHT)) {
+            marginRight = lerp(spec, AnimationSpec.CHANNEL_MARGIN_RIGHT, f);
+        }
+        if (has(mask, AnimationSpec.CHANNEL_MARGIN_BOTTOM)) {
+            marginBottom = lerp(spec, AnimationSpec.CHANNEL_MARGIN_BOTTOM, f);
+        }
+        if (has(mask, AnimationSpec.CHANNEL_SHADOW_RADIUS)) {
+            shadowRadius = lerp(spec, AnimationSpec.CHANNEL_SHADOW_RADIUS, f);
+        }
+        if (has(mask, AnimationSpec.CHANNEL_SHADOW_COLOR)) {
+            shadowColor = lerpColor(spec, AnimationSpec.CHANNEL_SHADOW_COLOR, f);
+        }
+    }
+
+    /**
+     * Sets the value of one of the int channels; rotation is set as a float.
+     *
+     * @param channel one of the AnimationSpec.CHANNEL_* constants
+     * @param value   the new value
+     */
+    public void set(int channel, int value) {
+        switch (channel) {
+            case AnimationSpec.CHANNEL_ROTATION:
+                rotation = value;
+                break;
+            case AnimationSpec.CHANNEL_WIDTH:
+                width = value;
+                break;
+            case AnimationSpec.CHANNEL_HEIGHT:
+                height = value;
+                break;
+            case AnimationSpec.CHANNEL_BACKGROUND_COLOR:
+                backgroundColor = value;
+                break;
+            case AnimationSpec.CHANNEL_TEXT_COLOR:
+                textColor = value;
+                break;
+            case AnimationSpec.CHANNEL_TEXT_SIZE:
+                textSize = value;
+                break;
+            case AnimationSpec.CHANNEL_MARGIN_LEFT:
+                marginLeft = value;
+                break;
+            case AnimationSpec.CHANNEL_MARGIN_TOP:
+                marginTop = value;
+                break;
+            case AnimationSpec.CHANNEL_MARGIN_RIGHT:
+                marginRight = value;
+                break;
+            case AnimationSpec.CHANNEL_MARGIN_BOTTOM:
+                marginBottom = value;
+                break;
+            case AnimationSpec.CHANNEL_SHADOW_RADIUS:
+                shadowRadius = value;
+                break;
+            case AnimationSpec.CHANNEL_SHADOW_COLOR:
+                shadowColor = value;
+                break;
+        }
+    }
+
+    private static boolean has(int mask, int channel) {
+        return (mask & 1 << channel) != 0;
+    }
+
+    private static int lerp(AnimationSpec spec, int channel, float fraction) {
+        return lerp(spec.getMin(channel), spec.getMax(channel), fraction);
+    }
+
+    private static int lerpColor(AnimationSpec spec, int channel, float fraction) {
+        return lerpColor(spec.getMin(channel), spec.getMax(channel), fraction);
+    }
+
+    /**
+     * Same rounding as {@link android.animation.IntEvaluator}.
+     */
+    public static int lerp(int from, int to, float fraction) {
+        return (int) (from + fraction * (to - from));
+    }
+
+    /**
+     * Per channel interpolation of two argb colors,
+     * like {@link android.animation.ArgbEvaluator} does, minus the boxing.
+     */
+    public static int lerpColor(int from, int to, float fraction) {
+        if (from == to) {
+            return from;
+        }
+        int a = lerp((from >>> 24), (to >>> 24), fraction);
+        int r = lerp((from >> 16) & 0xFF, (to >> 16) & 0xFF, fraction);
+        int g = lerp((from >> 8) & 0xFF, (to >> 8) & 0xFF, fraction);
+        int b = lerp(from & 0xFF, to & 0xFF, fraction);
+        return clamp(a) << 24 | clamp(r) << 16 | clamp(g) << 8 | clamp(b);
+    }
+
+    private static int clamp(int channel) {
+        return channel < 0 ? 0 : channel > 0xFF ? 0xFF : channel;
+    }
+}
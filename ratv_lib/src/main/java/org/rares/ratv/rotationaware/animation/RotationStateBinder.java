@@ -0,0 +1,230 @@
+package org.rares.ratv.rotationaware.animation;
+
+import android.support.annotation.NonNull;
+import android.util.SparseArray;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.AnimationUtils;
+import android.view.animation.Interpolator;
+
+import org.rares.ratv.rotationaware.RotationAwareTextView;
+
+import java.util.ArrayList;
+
+/**
+ * Keeps the rotation state of list items by adapter position, for views that get recycled. <br />
+ * Call {@link #bind(RotationAwareTextView, int, AnimationSpec)} from the adapter's bind method
+ * and {@link #toggle(RotationAwareTextView, int)} (or {@link #animate(RotationAwareTextView, int, boolean)})
+ * instead of animating the view directly. A rebound view shows the state of its new item at once;
+ * if that item was animating, the animation continues from where it would be by now. <br />
+ * Only items that were animated are stored. Hosts stay with their views and are reused on every
+ * rebind; with shared (interned) specs, binding does not allocate and does not restart animations.
+ * Adapter agnostic, it only needs the position of the item.
+ */
+public class RotationStateBinder {
+
+    private static final Interpolator INTERPOLATOR = new AccelerateDecelerateInterpolator();
+
+    private final SparseArray<ItemState> states = new SparseArray<>();
+    private final ArrayList<ItemHost> freeHosts = new ArrayList<>();
+    private final long duration;
+
+    /**
+     * @param duration of a full animation, in milliseconds
+     */
+    public RotationStateBinder(long duration) {
+        this.duration = duration;
+    }
+
+    /**
+     * Shows the state of the item at the given position on the view.
+     * The state is always written, whatever the view showed before.
+     * A running animation of the item previously bound to this view is stopped,
+     * its state is kept in the store.
+     *
+     * @param view     a (possibly recycled) view
+     * @param position adapter position of the item
+     * @param spec     animation values of the item; share interned specs between items
+     */
+    public void bind(@NonNull RotationAwareTextView view, int position, @NonNull AnimationSpec spec) {
+        ItemHost host = boundHost(view);
+        if (host == null) {
+            host = obtainHost(spec);
+        } else if (host.animator != null && host.animator.isRunning()) {
+            host.animator.cancel();
+        }
+        if (host.getAnimationSpec() != spec) {
+            host.updateAnimationSpec(spec);
+        }
+        host.bind(view);
+        host.position = position;
+
+        ItemState state = states.get(position);
+        if (state == null) {
+            // the view may still show the target state of its previous item
+            host.setProgress(view, 0);
+            return;
+        }
+        float progress = state.progressAt(AnimationUtils.currentAnimationTimeMillis(), duration);
+        if (state.isRunning()) {
+            start(view, host, state.reverse, progress);
+        } else {
+            host.setProgress(view, INTERPOLATOR.getInterpolation(progress));
+        }
+    }
+
+    /**
+     * Animates the item towards the opposite of its current direction.
+     *
+     * @param view     the view the item is bound to
+     * @param position adapter position of the item
+     */
+    public void toggle(@NonNull RotationAwareTextView view, int position) {
+        ItemState state = states.get(position);
+        animate(view, position, state == null || state.reverse);
+    }
+
+    /**
+     * Animates the item towards its target state, or its original state.
+     *
+     * @param view     the view the item is bound to
+     * @param position adapter position of the item
+     * @param toTarget true to animate towards the target state
+     */
+    public void animate(@NonNull RotationAwareTextView view, int position, boolean toTarget) {
+        ItemHost host = boundHost(view);
+        if (host == null || host.position != position) {
+            throw new IllegalStateException("The view is not bound to position " + position + ".");
+        }
+        long now = AnimationUtils.currentAnimationTimeMillis();
+        ItemState state = states.get(position);
+        if (state == null) {
+            state = new ItemState();
+            states.put(position, state);
+        }
+        float progress = state.progressAt(now, duration);
+        boolean reverse = !toTarget;
+        if (state.reverse == reverse && !state.isRunning()) {
+            return;
+        }
+        state.reverse = reverse;
+        state.progress = progress;
+        state.startTime = now;
+
+        if (host.animator != null && host.animator.isRunning()) {
+            // turned around in place
+            host.animate(view, reverse, duration);
+        } else {
+            start(view, host, reverse, progress);
+        }
+    }
+
+    /**
+     * @param position adapter position of the item
+     * @return the (linear) progress of the item, 0 at the original state and 1 at the target state
+     */
+    public float getProgress(int position) {
+        ItemState state = states.get(position);
+        return state == null ? 0 : state.progressAt(AnimationUtils.currentAnimationTimeMillis(), duration);
+    }
+
+    /**
+     * @param position adapter position of the item
+     * @return true if the item is at, or heading to, its target state
+     */
+    public boolean isTarget(int position) {
+        ItemState state = states.get(position);
+        return state != null && !state.reverse;
+    }
+
+    /**
+     * Gives the host of a view back to the pool, e.g. when its view holder is discarded.
+     *
+     * @param view the view to release
+     */
+    public void release(@NonNull RotationAwareTextView view) {
+        ItemHost host = boundHost(view);
+        if (host == null) {
+            return;
+        }
+        host.clearListeners();
+        host.bind(null);
+        host.position = -1;
+        freeHosts.add(host);
+    }
+
+    /**
+     * Forgets all item states. Bound views keep showing their current values.
+     */
+    public void clearStates() {
+        states.clear();
+    }
+
+    public void clear() {
+        states.clear();
+        for (int i = 0; i < freeHosts.size(); i++) {
+            freeHosts.get(i).clear();
+        }
+        freeHosts.clear();
+    }
+
+    private void start(RotationAwareTextView view, ItemHost host, boolean reverse, float progress) {
+        host.animate(view, reverse, duration);
+        // a reversed animator counts play time from its end
+        host.animator.setCurrentPlayTime((long) ((reverse ? 1 - progress : progress) * duration));
+    }
+
+    private ItemHost boundHost(RotationAwareTextView view) {
+        RotationAnimatorHost bound = view.getAnimatorHost();
+        if (bound instanceof ItemHost && ((ItemHost) bound).owner == this) {
+            return (ItemHost) bound;
+        }
+        return null;
+    }
+
+    private ItemHost obtainHost(AnimationSpec spec) {
+        int free = freeHosts.size();
+        if (free > 0) {
+            return freeHosts.remove(free - 1);
+        }
+        return new ItemHost(this, spec);
+    }
+
+    private static class ItemHost extends ReversibleRotationAnimatorHost {
+        final RotationStateBinder owner;
+        int position = -1;
+
+        ItemHost(RotationStateBinder owner, AnimationSpec spec) {
+            super(spec);
+            this.owner = owner;
+        }
+    }
+
+    private static class ItemState {
+        //    linear progress at start time
+        float progress;
+        boolean reverse = true;
+        //    -1 when settled
+        long startTime = -1;
+
+        boolean isRunning() {
+            return startTime >= 0;
+        }
+
+        /**
+         * @return the progress reached by now, settling the state if the animation is over
+         */
+        float progressAt(long now, long duration) {
+            if (startTime < 0) {
+                return progress;
+            }
+            float elapsed = duration > 0 ? (float) (now - startTime) / duration : 1F;
+            float current = reverse ? progress - elapsed : progress + elapsed;
+            if (current <= 0 || current >= 1) {
+                progress = reverse ? 0 : 1;
+                startTime = -1;
+                return progress;
+            }
+            return current;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package org.rares.ratv.rotationaware.animation;
+
+import android.animation.Animator;
+import android.animation.ValueAnimator;
+import android.support.annotation.NonNull;
+import android.view.animation.LinearInterpolator;
+
+import org.rares.ratv.rotationaware.RotationAwareTextView;
+
+import java.util.ArrayList;
+
+/**
+ * Plays {@link AnimationTimeline}s on many {@link RotationAwareTextView}s
+ * with a single {@link ValueAnimator}. <br />
+ * Every member has its own timeline and start delay, so staggered
+ * motions need one animator no matter how many views take part.
+ * Easing is done per timeline segment; the shared animator runs linearly.
+ * Like {@link RotationAnimationGroup}, a running group is reversed in place
+ * and paused while none of its members can be seen.
+ */
+public class RotationTimelineGroup implements ValueAnimator.AnimatorUpdateListener, Animator.AnimatorListener {
+
+    private final ValueAnimator animator = ValueAnimator.ofFloat(0F, 1F);
+    private final GroupAnimatorPause pause = new GroupAnimatorPause(animator);
+    private final ArrayList<TimelineUpdateListener> members = new ArrayList<>();
+
+    private long duration;
+    private boolean reverse = false;
+    private boolean hardwareLayer = false;
+
+    public RotationTimelineGroup() {
+        animator.setInterpolator(new LinearInterpolator());
+        animator.addUpdateListener(this);
+        animator.addListener(this);
+    }
+
+    /**
+     * Adds a view to the group. Should not be called while the group is running.
+     *
+     * @param view     the animated view
+     * @param timeline the keyframes this view plays; shared, not copied
+     * @param delay    in milliseconds, from the start of the group
+     */
+    public void add(@NonNull RotationAwareTextView view, @NonNull AnimationTimeline timeline, long delay) {
+        TimelineUpdateListener member = new TimelineUpdateListener(view, timeline, delay);
+        if (hardwareLayer) {
+            member.useHardwareLayer();
+        }
+        members.add(member);
+        pause.add(view);
+        duration = Math.max(duration, member.getEndTime());
+    }
+
+    /**
+     * Adds the views with the same timeline, each one starting
+     * the given amount of time after the previous one.
+     *
+     * @param views    the animated views, in start order
+     * @param timeline the keyframes all views play; shared, not copied
+     * @param stagger  in milliseconds, between two consecutive views
+     */
+    public void addStaggered(@NonNull RotationAwareTextView[] views, @NonNull AnimationTimeline timeline, long stagger) {
+        for (int i = 0; i < views.length; i++) {
+            add(views[i], timeline, i * stagger);
+        }
+    }
+
+    /**
+     * Removes a view from the group.
+     *
+     * @param view the view to remove
+     * @return true if the view was a member of this group
+     */
+    public boolean remove(RotationAwareTextView view) {
+        boolean removed = false;
+        for (int i = members.size() - 1; i >= 0; i--) {
+            TimelineUpdateListener member = members.get(i);
+            if (member.getView() == view) {
+                member.clear();
+                members.remove(i);
+                removed = true;
+            }
+        }
+        if (removed) {
+            pause.remove(view);
+            duration = 0;
+            for (int i = 0; i < members.size(); i++) {
+                duration = Math.max(duration, members.get(i).getEndTime());
+            }
+        }
+        return removed;
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * @return the end time of the last member, in milliseconds
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Starts or turns around the group.
+     *
+     * @param reverse true plays all timelines backwards, the last member first
+     */
+    public void animate(boolean reverse) {
+        boolean changed = this.reverse != reverse;
+        this.reverse = reverse;
+
+        pause.onAnimate(reverse);
+        if (animator.isRunning()) {
+            if (changed) {
+                animator.reverse();
+            }
+            return;
+        }
+
+        animator.setDuration(duration);
+        if (reverse) {
+            animator.reverse();
+        } else {
+            animator.start();
+        }
+        pause.update();
+    }
+
+    /**
+     * @return the animator shared by all members
+     */
+    public ValueAnimator getAnimator() {
+        return animator;
+    }
+
+    /**
+     * Applies to members added after this call.
+     *
+     * @see DefaultRotationAnimatorHost#setHardwareLayer(boolean)
+     */
+    public void setHardwareLayer(boolean hardwareLayer) {
+        this.hardwareLayer = hardwareLayer;
+    }
+
+    public boolean isHardwareLayer() {
+        return hardwareLayer;
+    }
+
+    @Override
+    public void onAnimationUpdate(ValueAnimator animation) {
+        long time = (long) (animation.getAnimatedFraction() * duration);
+        for (int i = 0; i < members.size(); i++) {
+            members.get(i).update(time);
+        }
+    }
+
+    @Override
+    public void onAnimationStart(Animator animation) {
+        for (int i = 0; i < members.size(); i++) {
+            members.get(i).onAnimationStart(animation);
+        }
+    }
+
+    @Override
+    public void onAnimationEnd(Animator animation) {
+        for (int i = 0; i < members.size(); i++) {
+            members.get(i).onAnimationEnd(animation);
+        }
+    }
+
+    @Override
+    public void onAnimationCancel(Animator animation) {
+        for (int i = 0; i < members.size(); i++) {
+            members.get(i).onAnimationCancel(animation);
+        }
+    }
+
+    @Override
+    public void onAnimationRepeat(Animator animation) {
+    }
+
+    /**
+     * Stops the animation where it is and removes all members.
+     */
+    public void clear() {
+        pause.clear();
+        animator.cancel();
+        for (int i = 0; i < members.size(); i++) {
+            members.get(i).clear();
+        }
+        members.clear();
+        duration = 0;
+    }
+}
@@ -0,0 +1,261 @@
+package org.rares.ratv.rotationaware.animation;
+
+import android.animation.ValueAnimator;
+import android.support.annotation.NonNull;
+import android.view.animation.AnimationUtils;
+
+import org.rares.ratv.rotationaware.RotationAwareTextView;
+
+/**
+ * {@link RotationAnimatorHost} that moves the view with a damped spring
+ * instead of a fixed duration. <br />
+ * The position is the animated fraction (0 is the original state, 1 the target state).
+ * A call to {@link #animate(RotationAwareTextView, boolean, long)} or
+ * {@link #fling(RotationAwareTextView, float)} while moving only changes the
+ * target, so the current velocity is kept. The motion ends once both the distance
+ * to the target and the velocity fall below their thresholds. <br />
+ * A single animator is used as a frame clock and reused between runs;
+ * values are applied through one {@link FrameUpdateListener}, so the frame path does not allocate.
+ */
+public class SpringRotationAnimatorHost extends FrameRotationAnimatorHost {
+
+    public static final float STIFFNESS_DEFAULT = 500F;
+    public static final float DAMPING_RATIO_DEFAULT = 1F;
+
+    //    longer frames are integrated in steps of at most this many seconds
+    private static final float MAX_STEP = 0.004F;
+    //    a frame gap longer than this (in seconds) is treated as a stall
+    private static final float MAX_FRAME = 0.064F;
+
+    private float stiffness = STIFFNESS_DEFAULT;
+    private float dampingRatio = DAMPING_RATIO_DEFAULT;
+    private float positionThreshold = 0.001F;
+    private float velocityThreshold = 0.01F;
+
+    private float position;
+    private float velocity;
+    private float target;
+    private long lastFrameTime = -1;
+
+    private FrameUpdateListener listener;
+
+    private final ValueAnimator.AnimatorUpdateListener clock = new ValueAnimator.AnimatorUpdateListener() {
+        @Override
+        public void onAnimationUpdate(ValueAnimator animation) {
+            step();
+        }
+    };
+
+    public SpringRotationAnimatorHost(@NonNull AnimationDTO animationData) {
+        super(animationData);
+    }
+
+    public SpringRotationAnimatorHost(@NonNull AnimationSpec animationSpec) {
+        super(animationSpec);
+    }
+
+    /**
+     * @param stiffness spring constant, for a unit mass; higher is faster
+     */
+    public void setStiffness(float stiffness) {
+        if (stiffness <= 0) {
+            throw new IllegalArgumentException("Stiffness must be positive.");
+        }
+        this.stiffness = stiffness;
+    }
+
+    public float getStiffness() {
+        return stiffness;
+    }
+
+    /**
+     * @param dampingRatio 1 is critically damped (no overshoot), lower values bounce
+     */
+    public void setDampingRatio(float dampingRatio) {
+        if (dampingRatio < 0) {
+            throw new IllegalArgumentException("Damping ratio must not be negative.");
+        }
+        this.dampingRatio = dampingRatio;
+    }
+
+    public float getDampingRatio() {
+        return dampingRatio;
+    }
+
+    /**
+     * @param positionThreshold distance to the target, as a fraction, below which the view may settle
+     * @param velocityThreshold velocity, in fractions per second, below which the view may settle
+     */
+    public void setSettleThresholds(float positionThreshold, float velocityThreshold) {
+        this.positionThreshold = positionThreshold;
+        this.velocityThreshold = velocityThreshold;
+    }
+
+    @Override
+    public void updateAnimationData(AnimationDTO data) {
+        detach();
+        super.updateAnimationData(data);
+    }
+
+    @Override
+    public void updateAnimationSpec(AnimationSpec spec) {
+        detach();
+        super.updateAnimationSpec(spec);
+    }
+
+    /**
+     * Springs towards the target state, or the original state if reverse is true.
+     * If the view is already moving, it keeps its velocity.
+     *
+     * @param duration ignored, the spring parameters decide how long the motion takes
+     */
+    @Override
+    public void animate(RotationAwareTextView view, boolean reverse, long duration) {
+        springTo(view, reverse, 0, false);
+    }
+
+    /**
+     * Adds the given velocity to the motion and springs towards
+     * the state it points to: the target state for positive values,
+     * the original state for negative values.
+     *
+     * @param view     the animated view
+     * @param velocity in fractions per second
+     */
+    public void fling(RotationAwareTextView view, float velocity) {
+        springTo(view, velocity < 0, velocity, true);
+    }
+
+    /**
+     * @return true while the spring is moving
+     */
+    public boolean isRunning() {
+        return animator != null && animator.isRunning();
+    }
+
+    /**
+     * @return the current position, as a fraction
+     */
+    public float getPosition() {
+        return position;
+    }
+
+    /**
+     * @return the current velocity, in fractions per second
+     */
+    public float getVelocity() {
+        return velocity;
+    }
+
+    private void springTo(RotationAwareTextView view, boolean reverse, float addedVelocity, boolean keepPosition) {
+        if (getAnimationSpec() == null) {
+            throw new IllegalStateException("Animation data is required.");
+        }
+        bind(view);
+        if (animator == null) {
+            animator = ValueAnimator.ofFloat(0F, 1F);
+            animator.setDuration(Integer.MAX_VALUE);
+            animator.setRepeatCount(ValueAnimator.INFINITE);
+        }
+        if (listener == null || listener.getView() != view) {
+            detach();
+            // the spring position is the fraction, so values are always evaluated forward
+            listener = new FrameUpdateListener(view, getAnimationSpec(), false);
+            animator.addUpdateListener(clock);
+            animator.addListener(listener);
+        }
+
+        boolean changed = this.reverse != reverse;
+        this.reverse = reverse;
+        configureListener(listener, reverse);
+        target = reverse ? 0F : 1F;
+
+        if (animator.isRunning()) {
+            if (changed) {
+                listener.applyEndState();
+            }
+            velocity += addedVelocity;
+            return;
+        }
+
+        if (!keepPosition) {
+            position = reverse ? 1F : 0F;
+        }
+        velocity = addedVelocity;
+        lastFrameTime = -1;
+        animator.start();
+    }
+
+    @Override
+    public void resume() {
+        lastFrameTime = -1;
+        super.resume();
+    }
+
+    /**
+     * Moves a paused spring to its target and settles it on the next frame.
+     */
+    @Override
+    public void finish() {
+        if (!isPaused()) {
+            return;
+        }
+        position = target;
+        velocity = 0;
+        resume();
+    }
+
+    private void step() {
+        long now = AnimationUtils.currentAnimationTimeMillis();
+        float elapsed = lastFrameTime < 0 ? 0 : (now - lastFrameTime) / 1000F;
+        lastFrameTime = now;
+        if (elapsed > MAX_FRAME) {
+            elapsed = MAX_FRAME;
+        }
+
+        float damping = 2 * dampingRatio * (float) Math.sqrt(stiffness);
+        while (elapsed > 0) {
+            float dt = elapsed < MAX_STEP ? elapsed : MAX_STEP;
+            elapsed -= dt;
+            // semi-implicit euler, stable for the step size above
+            velocity += (-stiffness * (position - target) - damping * velocity) * dt;
+            position += velocity * dt;
+        }
+
+        boolean settled = Math.abs(position - target) < positionThreshold
+                && Math.abs(velocity) < velocityThreshold;
+        if (settled) {
+            position = target;
+            velocity = 0;
+        }
+        if (listener != null) {
+            listener.update(position);
+        }
+        if (settled) {
+            // end() would run one more update at the animator's own end value
+            animator.cancel();
+        }
+    }
+
+    /**
+     * Stops the motion where it is, without jumping
+     * to the end values, and removes the listener.
+     */
+    @Override
+    public void clearListeners() {
+        detach();
+    }
+
+    private void detach() {
+        if (animator != null) {
+            animator.cancel();
+            animator.removeAllUpdateListeners();
+            animator.removeAllListeners();
+        }
+        if (listener != null) {
+            listener.clear();
+            listener = null;
+        }
+        velocity = 0;
+    }
+}
@@ -0,0 +1,61 @@
+package org.rares.ratv.rotationaware.animation;
+
+import android.animation.ValueAnimator;
+
+import org.rares.ratv.rotationaware.RotationAwareTextView;
+
+/**
+ * Update listener that plays an {@link AnimationTimeline} on a view,
+ * optionally delayed, e.g. to stagger several views in a {@link RotationTimelineGroup}. <br />
+ * Only the channels that have keyframes are applied. Does not allocate per frame.
+ */
+public class TimelineUpdateListener extends RotationAwareUpdateListener {
+
+    private final AnimationTimeline timeline;
+    private final long delay;
+    private final int[] cursors = AnimationTimeline.newCursors();
+
+    public TimelineUpdateListener(RotationAwareTextView animatedView, AnimationTimeline timeline, long delay) {
+        super(animatedView);
+        this.timeline = timeline;
+        this.delay = delay;
+    }
+
+    /**
+     * Uses the current play time of the animator, which should run
+     * for at least {@link #getEndTime()} milliseconds.
+     */
+    @Override
+    public void onAnimationUpdate(ValueAnimator animation) {
+        update(animation.getCurrentPlayTime());
+    }
+
+    /**
+     * Computes and applies the timeline values at the given time.
+     *
+     * @param time in milliseconds, including the delay
+     */
+    public void update(long time) {
+        RotationAwareTextView animatedView = getView();
+        if (animatedView == null) {
+            return;
+        }
+        timeline.evaluate(frame, time - delay, cursors);
+        apply(animatedView, frame, timeline.getMask());
+    }
+
+    public AnimationTimeline getTimeline() {
+        return timeline;
+    }
+
+    public long getDelay() {
+        return delay;
+    }
+
+    /**
+     * @return the delay plus the duration of the timeline
+     */
+    public long getEndTime() {
+        return delay + timeline.getDuration();
+    }
+}
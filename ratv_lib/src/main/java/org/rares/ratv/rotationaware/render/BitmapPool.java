@@ -0,0 +1,107 @@
+package org.rares.ratv.rotationaware.render;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import java.util.ArrayList;
+
+/**
+ * Process wide pool of {@link Bitmap.Config#ALPHA_8} bitmaps,
+ * used for text snapshots and masks. <br />
+ * Drawn with {@link android.graphics.Canvas#drawBitmap(Bitmap, float, float, android.graphics.Paint)},
+ * an alpha bitmap takes the color of the paint, so a single mask
+ * can be tinted with any (animated) color.
+ * The pool is bounded by the number of bytes it holds.
+ */
+public class BitmapPool {
+
+    public static final int DEFAULT_MAX_BYTES = 2 * 1024 * 1024;
+
+    private static final BitmapPool INSTANCE = new BitmapPool(DEFAULT_MAX_BYTES);
+
+    private final ArrayList<Bitmap> pool = new ArrayList<>();
+    private final int maxBytes;
+    private int bytes = 0;
+
+    /**
+     * @param maxBytes how many bytes the pooled (unused) bitmaps may hold
+     */
+    public BitmapPool(int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public static BitmapPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns a cleared alpha bitmap at least as large as requested.
+     * A pooled bitmap is reused if it is not more than twice the requested area.
+     *
+     * @param width  minimum width, in pixels
+     * @param height minimum height, in pixels
+     * @return a transparent bitmap
+     */
+    public synchronized Bitmap acquire(int width, int height) {
+        width = Math.max(1, width);
+        height = Math.max(1, height);
+        int best = -1;
+        long bestArea = Long.MAX_VALUE;
+        for (int i = 0; i < pool.size(); i++) {
+            Bitmap bitmap = pool.get(i);
+            if (bitmap.getWidth() >= width && bitmap.getHeight() >= height) {
+                long area = (long) bitmap.getWidth() * bitmap.getHeight();
+                if (area < bestArea) {
+                    best = i;
+                    bestArea = area;
+                }
+            }
+        }
+        if (best >= 0 && bestArea <= 2L * width * height) {
+            Bitmap bitmap = pool.remove(best);
+            bytes -= byteCount(bitmap);
+            bitmap.eraseColor(Color.TRANSPARENT);
+            return bitmap;
+        }
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ALPHA_8);
+    }
+
+    /**
+     * Gives a bitmap back to the pool. The oldest pooled
+     * bitmaps are recycled if the pool grows too large.
+     *
+     * @param bitmap a bitmap obtained from {@link #acquire(int, int)}; may be null
+     */
+    public synchronized void release(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+        int size = byteCount(bitmap);
+        if (size > maxBytes) {
+            bitmap.recycle();
+            return;
+        }
+        while (bytes + size > maxBytes && !pool.isEmpty()) {
+            Bitmap oldest = pool.remove(0);
+            bytes -= byteCount(oldest);
+            oldest.recycle();
+        }
+        pool.add(bitmap);
+        bytes += size;
+    }
+
+    /**
+     * Recycles all pooled bitmaps.
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < pool.size(); i++) {
+            pool.get(i).recycle();
+        }
+        pool.clear();
+        bytes = 0;
+    }
+
+    private static int byteCount(Bitmap bitmap) {
+        return bitmap.getRowBytes() * bitmap.getHeight();
+    }
+}
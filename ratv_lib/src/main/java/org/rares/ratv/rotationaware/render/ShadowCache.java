@@ -0,0 +1,257 @@
+package org.rares.ratv.rotationaware.render;
+
+import android.graphics.Bitmap;
+import android.graphics.BlurMaskFilter;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.RectF;
+import android.graphics.Typeface;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.LruCache;
+
+/**
+ * Process wide cache of pre-blurred text shadows. <br />
+ * Shadows are rendered as alpha masks at a fixed set of radii
+ * ({@link #LEVELS}) and kept in a cache bounded by bytes.
+ * Any other radius is drawn by adding up the weighted masks of its two
+ * neighbouring levels in a layer, so an animated shadow radius costs two
+ * bitmap draws instead of a blur per frame.
+ * Must be used from the UI thread.
+ */
+public class ShadowCache {
+
+    public static final int DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * Quantized radii, in pixels. Larger radii are rendered (and cached) as they are.
+     */
+    public static final int[] LEVELS = {0, 1, 2, 3, 4, 6, 8, 12, 16, 24, 32};
+
+    private static final ShadowCache INSTANCE = new ShadowCache(DEFAULT_MAX_BYTES);
+
+    private final LruCache<Key, Bitmap> cache;
+    private final Key probe = new Key();
+    private final Canvas maskCanvas = new Canvas();
+    private final Paint maskPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final PorterDuffXfermode addMode = new PorterDuffXfermode(PorterDuff.Mode.ADD);
+    private final RectF layerBounds = new RectF();
+    private final TextPaint maskTextPaint = new TextPaint();
+    private final BlurMaskFilter[] filters = new BlurMaskFilter[LEVELS.length];
+
+    /**
+     * @param maxBytes how many bytes the cached masks may hold
+     */
+    public ShadowCache(int maxBytes) {
+        cache = new LruCache<Key, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(Key key, Bitmap value) {
+                return value.getRowBytes() * value.getHeight();
+            }
+        };
+    }
+
+    public static ShadowCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Draws the shadow of a text layout, in layout coordinates.
+     * The layout paint must not have a shadow layer of its own.
+     *
+     * @param canvas the target canvas, translated to the layout origin
+     * @param layout the text layout casting the shadow
+     * @param radius shadow radius, in pixels; 0 means no shadow
+     * @param color  shadow color
+     */
+    public void draw(Canvas canvas, Layout layout, int radius, int color) {
+        if (radius <= 0 || Color.alpha(color) == 0) {
+            return;
+        }
+        int last = LEVELS[LEVELS.length - 1];
+        if (radius >= last) {
+            drawLevel(canvas, layout, radius, -1, color, 1F);
+            return;
+        }
+        int lower = levelIndex(radius);
+        int upper = lower + 1;
+        int lowerRadius = LEVELS[lower];
+        int upperRadius = LEVELS[upper];
+        float weight = (float) (radius - lowerRadius) / (upperRadius - lowerRadius);
+        if (lowerRadius == 0 || weight <= 0) {
+            // at most one of the masks is drawn
+            drawLevel(canvas, layout, lowerRadius, lower, color, 1 - weight);
+            drawLevel(canvas, layout, upperRadius, upper, color, weight);
+            return;
+        }
+        // drawn over each other, masks at (1 - w) and w would not reach full coverage where both are opaque
+        layerBounds.set(-upperRadius, -upperRadius,
+                layout.getWidth() + upperRadius, layout.getHeight() + upperRadius);
+        int saveCount = canvas.saveLayer(layerBounds, null, Canvas.ALL_SAVE_FLAG);
+        drawLevel(canvas, layout, lowerRadius, lower, color, 1 - weight);
+        maskPaint.setXfermode(addMode);
+        drawLevel(canvas, layout, upperRadius, upper, color, weight);
+        maskPaint.setXfermode(null);
+        canvas.restoreToCount(saveCount);
+    }
+
+    /**
+     * @return the index of the largest level not above the radius
+     */
+    public static int levelIndex(int radius) {
+        int index = 0;
+        while (index < LEVELS.length - 1 && LEVELS[index + 1] <= radius) {
+            index++;
+        }
+        return index;
+    }
+
+    public int hitCount() {
+        return cache.hitCount();
+    }
+
+    public int missCount() {
+        return cache.missCount();
+    }
+
+    public void clear() {
+        cache.evictAll();
+    }
+
+    private void drawLevel(Canvas canvas, Layout layout, int radius, int level, int color, float weight) {
+        if (radius == 0 || weight <= 0) {
+            return;
+        }
+        Bitmap mask = getMask(layout, radius, level);
+        maskPaint.setColor(color);
+        maskPaint.setAlpha((int) (Color.alpha(color) * weight));
+        canvas.drawBitmap(mask, -radius, -radius, maskPaint);
+    }
+
+    private Bitmap getMask(Layout layout, int radius, int level) {
+        probe.set(layout, radius);
+        Bitmap mask = cache.get(probe);
+        if (mask == null) {
+            mask = render(layout, radius, level);
+            cache.put(probe.copy(), mask);
+        }
+        probe.text = null;
+        return mask;
+    }
+
+    private Bitmap render(Layout layout, int radius, int level) {
+        BlurMaskFilter filter = level >= 0 ? filters[level] : null;
+        if (filter == null) {
+            filter = new BlurMaskFilter(radius, BlurMaskFilter.Blur.NORMAL);
+            if (level >= 0) {
+                filters[level] = filter;
+            }
+        }
+        Bitmap mask = Bitmap.createBitmap(
+                layout.getWidth() + 2 * radius,
+                layout.getHeight() + 2 * radius,
+                Bitmap.Config.ALPHA_8);
+
+        // the layout paint may be pooled and must not be modified, the mask is drawn with a copy
+        maskTextPaint.set(layout.getPaint());
+        maskTextPaint.clearShadowLayer();
+        maskTextPaint.setColor(Color.BLACK);
+        maskTextPaint.setMaskFilter(filter);
+        // the text of an ellipsized layout is already ellipsized
+        CharSequence text = layout.getText();
+        StaticLayout maskLayout = new StaticLayout(text, 0, text.length(), maskTextPaint,
+                layout.getWidth(), layout.getAlignment(),
+                layout.getSpacingMultiplier(), layout.getSpacingAdd(), true);
+
+        maskCanvas.setBitmap(mask);
+        maskCanvas.save();
+        maskCanvas.translate(radius, radius);
+        maskLayout.draw(maskCanvas);
+        maskCanvas.restore();
+        maskCanvas.setBitmap(null);
+
+        maskTextPaint.setMaskFilter(null);
+        return mask;
+    }
+
+    private static class Key {
+        CharSequence text;
+        Typeface typeface;
+        float textSize;
+        int flags;
+        int width;
+        int height;
+        Layout.Alignment alignment;
+        int radius;
+        int hash;
+
+        void set(Layout layout, int radius) {
+            TextPaint paint = layout.getPaint();
+            text = layout.getText();
+            typeface = paint.getTypeface();
+            textSize = paint.getTextSize();
+            flags = paint.getFlags();
+            width = layout.getWidth();
+            height = layout.getHeight();
+            alignment = layout.getAlignment();
+            this.radius = radius;
+
+            int h = 0;
+            for (int i = 0; i < text.length(); i++) {
+                h = 31 * h + text.charAt(i);
+            }
+            h = 31 * h + (typeface == null ? 0 : typeface.hashCode());
+            h = 31 * h + Float.floatToIntBits(textSize);
+            h = 31 * h + flags;
+            h = 31 * h + width;
+            h = 31 * h + height;
+            h = 31 * h + alignment.ordinal();
+            h = 31 * h + radius;
+            hash = h;
+        }
+
+        Key copy() {
+            Key key = new Key();
+            key.text = text.toString();
+            key.typeface = typeface;
+            key.textSize = textSize;
+            key.flags = flags;
+            key.width = width;
+            key.height = height;
+            key.alignment = alignment;
+            key.radius = radius;
+            key.hash = hash;
+            return key;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash
+                    && radius == other.radius
+                    && width == other.width
+                    && height == other.height
+                    && flags == other.flags
+                    && textSize == other.textSize
+                    && alignment == other.alignment
+                    && (typeface == null ? other.typeface == null : typeface.equals(other.typeface))
+                    && TextUtils.equals(text, other.text);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.rares.ratv.rotationaware.text;
+
+import android.graphics.Typeface;
+import android.text.TextPaint;
+
+import java.util.Arrays;
+
+/**
+ * Per glyph advance widths for ASCII characters, measured once per paint state. <br />
+ * Used to measure text that changes often, like counters, without shaping
+ * the whole text again. Kerning is ignored, which is exact for digits
+ * and most fonts. One instance per view, not thread safe.
+ */
+public class GlyphAdvances {
+
+    private static final int SIZE = 128;
+
+    private final float[] advances = new float[SIZE];
+    private final char[] glyph = new char[1];
+
+    private float textSize = -1;
+    private float textScaleX;
+    private Typeface typeface;
+    private int flags;
+
+    public GlyphAdvances() {
+        Arrays.fill(advances, Float.NaN);
+    }
+
+    /**
+     * @param text  the text to measure
+     * @param paint the paint used for drawing
+     * @return the sum of the advances of all characters
+     */
+    public float measure(CharSequence text, TextPaint paint) {
+        check(paint);
+        float width = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < SIZE) {
+                float advance = advances[c];
+                if (advance != advance) {
+                    glyph[0] = c;
+                    advance = paint.measureText(glyph, 0, 1);
+                    advances[c] = advance;
+                }
+                width += advance;
+            } else {
+                width += paint.measureText(text, i, i + 1);
+            }
+        }
+        return width;
+    }
+
+    private void check(TextPaint paint) {
+        if (paint.getTextSize() != textSize
+                || paint.getTextScaleX() != textScaleX
+                || paint.getTypeface() != typeface
+                || paint.getFlags() != flags) {
+            textSize = paint.getTextSize();
+            textScaleX = paint.getTextScaleX();
+            typeface = paint.getTypeface();
+            flags = paint.getFlags();
+            Arrays.fill(advances, Float.NaN);
+        }
+    }
+}
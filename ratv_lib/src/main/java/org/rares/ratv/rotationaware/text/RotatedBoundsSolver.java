@@ -0,0 +1,233 @@
+package org.rares.ratv.rotationaware.text;
+
+import android.graphics.Typeface;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.LruCache;
+
+/**
+ * Finds the largest text size at which a text, rotated by a given angle,
+ * fits inside a box. <br />
+ * The bounding box of a w x h rectangle rotated by a is
+ * (w |cos a| + h |sin a|) x (w |sin a| + h |cos a|); the text size is found with
+ * a binary search over sizes. The steps are measured without going through
+ * the shared {@link TextMetricsCache}, so they do not evict the entries of views;
+ * results are memoized instead, so solving the same problem again does not measure. <br />
+ * All methods are thread safe.
+ */
+public class RotatedBoundsSolver {
+
+    public static final int DEFAULT_MAX_SIZE = 128;
+
+    private static final RotatedBoundsSolver INSTANCE = new RotatedBoundsSolver(DEFAULT_MAX_SIZE);
+
+    private final LruCache<Key, Result> cache;
+    private final Key probe = new Key();
+    private final TextPaint workPaint = new TextPaint();
+
+    /**
+     * A solved size. Shared, do not modify.
+     */
+    public static class Result {
+        /**
+         * Largest fitting text size, in pixels; the minimum size if nothing fits.
+         */
+        public final int textSize;
+        /**
+         * Size of the text at that text size, before rotation.
+         */
+        public final int textWidth;
+        public final int textHeight;
+        /**
+         * Size of the rotated text.
+         */
+        public final int boundsWidth;
+        public final int boundsHeight;
+
+        Result(int textSize, int textWidth, int textHeight, int boundsWidth, int boundsHeight) {
+            this.textSize = textSize;
+            this.textWidth = textWidth;
+            this.textHeight = textHeight;
+            this.boundsWidth = boundsWidth;
+            this.boundsHeight = boundsHeight;
+        }
+    }
+
+    /**
+     * @param maxSize maximum number of memoized results
+     */
+    public RotatedBoundsSolver(int maxSize) {
+        cache = new LruCache<>(maxSize);
+    }
+
+    /**
+     * @return the solver used by {@link org.rares.ratv.rotationaware.RotationAwareTextView}s
+     */
+    public static RotatedBoundsSolver getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param text        the text to fit
+     * @param paint       the paint it is drawn with; its text size is ignored and not changed
+     * @param angle       rotation, in degrees
+     * @param boxWidth    available width, in pixels
+     * @param boxHeight   available height, in pixels
+     * @param minTextSize smallest allowed text size, in pixels
+     * @param maxTextSize largest allowed text size, in pixels
+     * @return the largest fitting size, and the text and rotated sizes at that size
+     */
+    public synchronized Result solve(CharSequence text, TextPaint paint, float angle,
+                                     int boxWidth, int boxHeight, int minTextSize, int maxTextSize) {
+        probe.set(text, paint, angle, boxWidth, boxHeight, minTextSize, maxTextSize);
+        Result result = cache.get(probe);
+        if (result == null) {
+            result = search(text, paint, angle, boxWidth, boxHeight, minTextSize, maxTextSize);
+            cache.put(probe.copy(), result);
+        }
+        probe.text = null;
+        probe.typeface = null;
+        return result;
+    }
+
+    /**
+     * @return the width of a w x h rectangle rotated by the angle (in degrees)
+     */
+    public static float rotatedWidth(float width, float height, float angle) {
+        double radians = Math.toRadians(angle);
+        return (float) (width * Math.abs(Math.cos(radians)) + height * Math.abs(Math.sin(radians)));
+    }
+
+    /**
+     * @return the height of a w x h rectangle rotated by the angle (in degrees)
+     */
+    public static float rotatedHeight(float width, float height, float angle) {
+        double radians = Math.toRadians(angle);
+        return (float) (width * Math.abs(Math.sin(radians)) + height * Math.abs(Math.cos(radians)));
+    }
+
+    public synchronized void clear() {
+        cache.evictAll();
+    }
+
+    private Result search(CharSequence text, TextPaint paint, float angle,
+                          int boxWidth, int boxHeight, int minTextSize, int maxTextSize) {
+        double radians = Math.toRadians(angle);
+        float cos = (float) Math.abs(Math.cos(radians));
+        float sin = (float) Math.abs(Math.sin(radians));
+        workPaint.set(paint);
+        workPaint.clearShadowLayer();
+
+        // largest size that fits, assuming the text grows with its size
+        int low = minTextSize;
+        int high = Math.max(minTextSize, maxTextSize);
+        int best = minTextSize;
+        TextMetricsCache.Entry bestEntry = null;
+        while (low <= high) {
+            int size = (low + high) >>> 1;
+            TextMetricsCache.Entry entry = measure(text, size);
+            float width = entry.width;
+            float height = entry.lines * entry.lineHeight;
+            if (width * cos + height * sin <= boxWidth && width * sin + height * cos <= boxHeight) {
+                best = size;
+                bestEntry = entry;
+                low = size + 1;
+            } else {
+                high = size - 1;
+            }
+        }
+
+        TextMetricsCache.Entry entry = bestEntry != null ? bestEntry : measure(text, best);
+        int width = (int) Math.ceil(entry.width);
+        int height = entry.lines * entry.lineHeight;
+        return new Result(best, width, height,
+                (int) Math.ceil(width * cos + height * sin),
+                (int) Math.ceil(width * sin + height * cos));
+    }
+
+    private TextMetricsCache.Entry measure(CharSequence text, int size) {
+        workPaint.setTextSize(size);
+        return TextMetricsCache.measure(text, workPaint);
+    }
+
+    private static class Key {
+        CharSequence text;
+        Typeface typeface;
+        float textScaleX;
+        int flags;
+        float angle;
+        int boxWidth;
+        int boxHeight;
+        int minTextSize;
+        int maxTextSize;
+        int hash;
+
+        void set(CharSequence text, TextPaint paint, float angle,
+                 int boxWidth, int boxHeight, int minTextSize, int maxTextSize) {
+            this.text = text;
+            typeface = paint.getTypeface();
+            textScaleX = paint.getTextScaleX();
+            flags = paint.getFlags();
+            this.angle = angle;
+            this.boxWidth = boxWidth;
+            this.boxHeight = boxHeight;
+            this.minTextSize = minTextSize;
+            this.maxTextSize = maxTextSize;
+
+            int h = 0;
+            for (int i = 0; i < text.length(); i++) {
+                h = 31 * h + text.charAt(i);
+            }
+            h = 31 * h + (typeface == null ? 0 : typeface.hashCode());
+            h = 31 * h + Float.floatToIntBits(textScaleX);
+            h = 31 * h + flags;
+            h = 31 * h + Float.floatToIntBits(angle);
+            h = 31 * h + boxWidth;
+            h = 31 * h + boxHeight;
+            h = 31 * h + minTextSize;
+            h = 31 * h + maxTextSize;
+            hash = h;
+        }
+
+        Key copy() {
+            Key key = new Key();
+            key.text = text.toString();
+            key.typeface = typeface;
+            key.textScaleX = textScaleX;
+            key.flags = flags;
+            key.angle = angle;
+            key.boxWidth = boxWidth;
+            key.boxHeight = boxHeight;
+            key.minTextSize = minTextSize;
+            key.maxTextSize = maxTextSize;
+            key.hash = hash;
+            return key;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash
+                    && boxWidth == other.boxWidth
+                    && boxHeight == other.boxHeight
+                    && minTextSize == other.minTextSize
+                    && maxTextSize == other.maxTextSize
+                    && angle == other.angle
+                    && flags == other.flags
+                    && textScaleX == other.textScaleX
+                    && (typeface == null ? other.typeface == null : typeface.equals(other.typeface))
+                    && TextUtils.equals(text, other.text);
+        }
+    }
+}
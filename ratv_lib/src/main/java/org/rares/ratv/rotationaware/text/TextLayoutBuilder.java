@@ -0,0 +1,117 @@
+package org.rares.ratv.rotationaware.text;
+
+import android.graphics.Typeface;
+import android.text.BoringLayout;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+
+/**
+ * Picks the layout type for a text and reuses layout objects. <br />
+ * Single line, left to right text keeps the {@link BoringLayout} fast path,
+ * recycled with {@link BoringLayout#replaceOrMake}. Everything else
+ * (several lines, right to left or complex scripts) gets a {@link StaticLayout},
+ * which is kept and returned again as long as none of its inputs change. <br />
+ * One instance per view, not thread safe.
+ */
+public class TextLayoutBuilder {
+
+    private BoringLayout boringLayout;
+
+    private StaticLayout staticLayout;
+    private String staticText;
+    private TextPaint staticPaint;
+    private float staticTextSize;
+    private float staticTextScaleX;
+    private Typeface staticTypeface;
+    private int staticFlags;
+    private int staticWidth;
+    private Layout.Alignment staticAlignment;
+    private TextUtils.TruncateAt staticTruncateAt;
+
+    private int staticLayoutCount = 0;
+    private int reusedLayoutCount = 0;
+
+    /**
+     * @param text      the text to lay out
+     * @param paint     the paint the layout draws with
+     * @param width     the wrapping width
+     * @param alignment horizontal alignment
+     * @param truncateAt where to ellipsize, or null
+     * @param metrics   measurements of the text, from {@link TextMetricsCache}
+     * @return a layout for the text; may be the one returned by the previous call
+     */
+    public Layout build(String text, TextPaint paint, int width, Layout.Alignment alignment,
+                        TextUtils.TruncateAt truncateAt, TextMetricsCache.Entry metrics) {
+        if (width < 0) {
+            width = 0;
+        }
+        int ellipsizedWidth = (int) (width - metrics.ellipsisWidth);
+        if (metrics.boring != null) {
+            if (boringLayout != null) {
+                boringLayout = boringLayout.replaceOrMake(
+                        text, paint, width, alignment, 0F, 0F,
+                        metrics.boring, true, truncateAt, ellipsizedWidth);
+            } else {
+                boringLayout = BoringLayout.make(
+                        text, paint, width, alignment, 0F, 0F,
+                        metrics.boring, true, truncateAt, ellipsizedWidth);
+            }
+            return boringLayout;
+        }
+
+        if (staticLayout != null
+                && paint == staticPaint
+                && width == staticWidth
+                && alignment == staticAlignment
+                && truncateAt == staticTruncateAt
+                && paint.getTextSize() == staticTextSize
+                && paint.getTextScaleX() == staticTextScaleX
+                && paint.getTypeface() == staticTypeface
+                && paint.getFlags() == staticFlags
+                && text.equals(staticText)) {
+            reusedLayoutCount++;
+            return staticLayout;
+        }
+        staticLayout = new StaticLayout(
+                text, 0, text.length(), paint, width, alignment, 1F, 0F,
+                true, truncateAt, Math.max(ellipsizedWidth, 0));
+        staticLayoutCount++;
+        staticText = text;
+        staticPaint = paint;
+        staticTextSize = paint.getTextSize();
+        staticTextScaleX = paint.getTextScaleX();
+        staticTypeface = paint.getTypeface();
+        staticFlags = paint.getFlags();
+        staticWidth = width;
+        staticAlignment = alignment;
+        staticTruncateAt = truncateAt;
+        return staticLayout;
+    }
+
+    /**
+     * @return how many static layouts were created
+     */
+    public int getStaticLayoutCount() {
+        return staticLayoutCount;
+    }
+
+    /**
+     * @return how many times the previous static layout was returned again
+     */
+    public int getReusedLayoutCount() {
+        return reusedLayoutCount;
+    }
+
+    /**
+     * Drops the kept layouts.
+     */
+    public void clear() {
+        boringLayout = null;
+        staticLayout = null;
+        staticText = null;
+        staticPaint = null;
+        staticTypeface = null;
+    }
+}
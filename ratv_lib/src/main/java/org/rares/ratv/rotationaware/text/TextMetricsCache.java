@@ -0,0 +1,215 @@
+package org.rares.ratv.rotationaware.text;
+
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.text.BoringLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.LruCache;
+
+/**
+ * Process wide, size bounded cache for text measurements. <br />
+ * Entries are keyed by text, typeface, text size, text scale and paint flags
+ * and hold the text width, the {@link BoringLayout.Metrics}, the
+ * width reserved for the ellipsis and the line metrics. Lookups do not allocate.
+ * All methods are thread safe.
+ */
+public class TextMetricsCache {
+
+    public static final int DEFAULT_MAX_SIZE = 256;
+
+    private static final TextMetricsCache INSTANCE = new TextMetricsCache(DEFAULT_MAX_SIZE);
+
+    private final LruCache<Key, Entry> cache;
+    private final Key probe = new Key();
+
+    /**
+     * Measurements for one text / paint combination.
+     * The boring metrics are shared, do not modify them.
+     */
+    public static class Entry {
+        /**
+         * Width of the widest line.
+         */
+        public final float width;
+        /**
+         * Null if the text needs a {@link android.text.StaticLayout}
+         * (several lines, right to left or complex scripts).
+         */
+        public final BoringLayout.Metrics boring;
+        public final float ellipsisWidth;
+        /**
+         * Number of lines, as separated by line feeds.
+         */
+        public final int lines;
+        /**
+         * Distance between two baselines.
+         */
+        public final int lineHeight;
+
+        Entry(float width, BoringLayout.Metrics boring, float ellipsisWidth, int lines, int lineHeight) {
+            this.width = width;
+            this.boring = boring;
+            this.ellipsisWidth = ellipsisWidth;
+            this.lines = lines;
+            this.lineHeight = lineHeight;
+        }
+    }
+
+    /**
+     * @param maxSize maximum number of cached entries
+     */
+    public TextMetricsCache(int maxSize) {
+        cache = new LruCache<>(maxSize);
+    }
+
+    /**
+     * @return the cache shared by all {@link org.rares.ratv.rotationaware.RotationAwareTextView}s
+     */
+    public static TextMetricsCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the measurements of the text drawn with the paint,
+     * measuring it only if it is not cached yet. <br />
+     * The measurement runs outside the lock, so a long text measured on a
+     * background thread does not block lookups from the UI thread.
+     *
+     * @param text  the text to measure
+     * @param paint the paint used for drawing
+     * @return cached or fresh measurements
+     */
+    public Entry get(CharSequence text, TextPaint paint) {
+        synchronized (this) {
+            probe.set(text, paint);
+            Entry entry = cache.get(probe);
+            probe.text = null;
+            if (entry != null) {
+                return entry;
+            }
+        }
+        Entry entry = measure(text, paint);
+        put(text, paint, entry);
+        return entry;
+    }
+
+    /**
+     * Stores measurements computed elsewhere.
+     */
+    public synchronized void put(CharSequence text, TextPaint paint, Entry entry) {
+        probe.set(text, paint);
+        cache.put(probe.copy(), entry);
+        probe.text = null;
+    }
+
+    /**
+     * Measures the text without touching the cache.
+     */
+    public static Entry measure(CharSequence text, TextPaint paint) {
+        int length = text.length();
+        int lines = 1;
+        float widest = 0;
+        int lineStart = 0;
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) == '\n') {
+                widest = Math.max(widest, paint.measureText(text, lineStart, i));
+                lineStart = i + 1;
+                lines++;
+            }
+        }
+        widest = Math.max(widest, paint.measureText(text, lineStart, length));
+        Paint.FontMetricsInt fontMetrics = paint.getFontMetricsInt();
+        return new Entry(
+                widest,
+                lines == 1 ? BoringLayout.isBoring(text, paint) : null,
+                paint.measureText("W"),
+                lines,
+                fontMetrics.descent - fontMetrics.ascent + fontMetrics.leading);
+    }
+
+    public synchronized int hitCount() {
+        return cache.hitCount();
+    }
+
+    public synchronized int missCount() {
+        return cache.missCount();
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public synchronized void clear() {
+        cache.evictAll();
+    }
+
+    private static class Key {
+        CharSequence text;
+        Typeface typeface;
+        float textSize;
+        float textScaleX;
+        int flags;
+        int hash;
+
+        void set(CharSequence text, TextPaint paint) {
+            this.text = text;
+            typeface = paint.getTypeface();
+            textSize = paint.getTextSize();
+            textScaleX = paint.getTextScaleX();
+            flags = paint.getFlags();
+            hash = computeHash();
+        }
+
+        Key copy() {
+            Key key = new Key();
+            key.text = text.toString();
+            key.typeface = typeface;
+            key.textSize = textSize;
+            key.textScaleX = textScaleX;
+            key.flags = flags;
+            key.hash = hash;
+            return key;
+        }
+
+        private int computeHash() {
+            int h;
+            if (text instanceof String) {
+                h = text.hashCode();
+            } else {
+                // same as String.hashCode, so mutable char sequences match their String copies
+                h = 0;
+                for (int i = 0; i < text.length(); i++) {
+                    h = 31 * h + text.charAt(i);
+                }
+            }
+            h = 31 * h + (typeface == null ? 0 : typeface.hashCode());
+            h = 31 * h + Float.floatToIntBits(textSize);
+            h = 31 * h + Float.floatToIntBits(textScaleX);
+            h = 31 * h + flags;
+            return h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash
+                    && flags == other.flags
+                    && textSize == other.textSize
+                    && textScaleX == other.textScaleX
+                    && (typeface == null ? other.typeface == null : typeface.equals(other.typeface))
+                    && TextUtils.equals(text, other.text);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package org.rares.ratv.rotationaware.text;
+
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.os.Build;
+import android.text.TextPaint;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+
+/**
+ * Process wide pool of {@link TextPaint}s shared by views with the same text style. <br />
+ * A style is the color, text size, text scale and skew, typeface, flags, paint style
+ * and stroke width, text align, letter spacing, locale and shadow layer;
+ * the shadow is passed in, as paints do not expose it on all API levels.
+ * Paints with a shader, color filter, path effect, mask filter or transfer mode
+ * are not pooled, see {@link #canShare(TextPaint)}.
+ * Pooled paints must not be modified: a view that needs to change its paint
+ * copies it first and {@link #release(TextPaint)}s the shared one.
+ * Paints are reference counted and dropped when no view uses them any more.
+ * All methods are thread safe.
+ */
+public class TextPaintPool {
+
+    private static final TextPaintPool INSTANCE = new TextPaintPool();
+
+    private final HashMap<Style, Shared> pool = new HashMap<>();
+    private final IdentityHashMap<TextPaint, Shared> byPaint = new IdentityHashMap<>();
+    private final Style probe = new Style();
+
+    private static class Shared {
+        final Style style;
+        final TextPaint paint;
+        int references;
+
+        Shared(Style style, TextPaint paint) {
+            this.style = style;
+            this.paint = paint;
+        }
+    }
+
+    /**
+     * @return the pool shared by all {@link org.rares.ratv.rotationaware.RotationAwareTextView}s
+     */
+    public static TextPaintPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the pooled paint for the style of the given paint,
+     * pooling a copy of it if the style is new.
+     *
+     * @param paint        the style to look up; not retained
+     * @param shadowRadius the shadow radius set on the paint (0 for none)
+     * @param shadowColor  the shadow color set on the paint
+     * @return a shared paint, to be given back with {@link #release(TextPaint)}
+     * @throws IllegalArgumentException if the paint cannot be shared, see {@link #canShare(TextPaint)}
+     */
+    public synchronized TextPaint acquire(TextPaint paint, int shadowRadius, int shadowColor) {
+        if (!canShare(paint)) {
+            throw new IllegalArgumentException("The paint has effects that cannot be pooled.");
+        }
+        probe.set(paint, shadowRadius, shadowColor);
+        Shared shared = pool.get(probe);
+        if (shared == null) {
+            Style style = new Style();
+            style.set(paint, shadowRadius, shadowColor);
+            shared = new Shared(style, new TextPaint(paint));
+            pool.put(style, shared);
+            byPaint.put(shared.paint, shared);
+        }
+        probe.typeface = null;
+        probe.locale = null;
+        shared.references++;
+        return shared.paint;
+    }
+
+    /**
+     * Effects are objects without value equality, so paints using them are not pooled.
+     *
+     * @return true if the paint has no shader, color filter, path effect,
+     * mask filter or transfer mode
+     */
+    public static boolean canShare(TextPaint paint) {
+        return paint.getShader() == null
+                && paint.getColorFilter() == null
+                && paint.getPathEffect() == null
+                && paint.getMaskFilter() == null
+                && paint.getXfermode() == null;
+    }
+
+    /**
+     * @param paint a paint returned by {@link #acquire(TextPaint, int, int)}
+     */
+    public synchronized void release(TextPaint paint) {
+        Shared shared = byPaint.get(paint);
+        if (shared == null) {
+            return;
+        }
+        shared.references--;
+        if (shared.references <= 0) {
+            pool.remove(shared.style);
+            byPaint.remove(paint);
+        }
+    }
+
+    /**
+     * @return true if the paint is pooled
+     */
+    public synchronized boolean isShared(TextPaint paint) {
+        return byPaint.containsKey(paint);
+    }
+
+    /**
+     * @return the number of distinct pooled styles
+     */
+    public synchronized int size() {
+        return pool.size();
+    }
+
+    private static class Style {
+        int color;
+        float textSize;
+        float textScaleX;
+        float textSkewX;
+        Typeface typeface;
+        int flags;
+        Paint.Style style;
+        float strokeWidth;
+        Paint.Align textAlign;
+        float letterSpacing;
+        Locale locale;
+        int shadowRadius;
+        int shadowColor;
+        int hash;
+
+        void set(TextPaint paint, int shadowRadius, int shadowColor) {
+            color = paint.getColor();
+            textSize = paint.getTextSize();
+            textScaleX = paint.getTextScaleX();
+            textSkewX = paint.getTextSkewX();
+            typeface = paint.getTypeface();
+            flags = paint.getFlags();
+            style = paint.getStyle();
+            strokeWidth = paint.getStrokeWidth();
+            textAlign = paint.getTextAlign();
+            letterSpacing = Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP ? paint.getLetterSpacing() : 0;
+            locale = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1 ? paint.getTextLocale() : null;
+            this.shadowRadius = shadowRadius;
+            this.shadowColor = shadowColor;
+            int h = color;
+            h = 31 * h + Float.floatToIntBits(textSize);
+            h = 31 * h + Float.floatToIntBits(textScaleX);
+            h = 31 * h + Float.floatToIntBits(textSkewX);
+            h = 31 * h + (typeface == null ? 0 : typeface.hashCode());
+            h = 31 * h + flags;
+            h = 31 * h + style.ordinal();
+            h = 31 * h + Float.floatToIntBits(strokeWidth);
+            h = 31 * h + textAlign.ordinal();
+            h = 31 * h + Float.floatToIntBits(letterSpacing);
+            h = 31 * h + (locale == null ? 0 : locale.hashCode());
+            h = 31 * h + shadowRadius;
+            h = 31 * h + shadowColor;
+            hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Style)) {
+                return false;
+            }
+            Style other = (Style) o;
+            return hash == other.hash
+                    && color == other.color
+                    && textSize == other.textSize
+                    && textScaleX == other.textScaleX
+                    && textSkewX == other.textSkewX
+                    && flags == other.flags
+                    && style == other.style
+                    && strokeWidth == other.strokeWidth
+                    && textAlign == other.textAlign
+                    && letterSpacing == other.letterSpacing
+                    && shadowRadius == other.shadowRadius
+                    && shadowColor == other.shadowColor
+                    && (typeface == null ? other.typeface == null : typeface.equals(other.typeface))
+                    && (locale == null ? other.locale == null : locale.equals(other.locale));
+        }
+    }
+}
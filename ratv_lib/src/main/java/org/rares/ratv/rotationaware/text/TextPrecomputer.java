@@ -0,0 +1,108 @@
+package org.rares.ratv.rotationaware.text;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.text.TextPaint;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Measures text on a background thread and stores the result
+ * in the {@link TextMetricsCache}, so that measuring and laying out
+ * the same text and paint on the UI thread is a cache hit. <br />
+ * Results are delivered on the main thread. Pending work is cancelled
+ * with the returned {@link Future}; a task that already started
+ * still fills the cache, but callers should drop late results
+ * (e.g. with a generation counter).
+ */
+public class TextPrecomputer {
+
+    /**
+     * Receives the measurements on the main thread.
+     */
+    public interface Callback {
+        void onPrecomputed(CharSequence text, TextMetricsCache.Entry entry);
+    }
+
+    private static final TextPrecomputer INSTANCE = new TextPrecomputer(
+            Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }
+                    }, "ratv-text");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }),
+            TextMetricsCache.getInstance());
+
+    private final ExecutorService executor;
+    private final TextMetricsCache cache;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * @param executor runs the measurements
+     * @param cache    receives the measurements
+     */
+    public TextPrecomputer(ExecutorService executor, TextMetricsCache cache) {
+        this.executor = executor;
+        this.cache = cache;
+    }
+
+    /**
+     * @return the instance used by {@link org.rares.ratv.rotationaware.RotationAwareTextView}s,
+     * backed by a single background thread
+     */
+    public static TextPrecomputer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Warms the cache, e.g. for the labels of list items about to be bound.
+     *
+     * @param text  the text to measure
+     * @param paint the paint it will be drawn with; copied, so it can keep changing
+     * @return the pending task
+     */
+    public Future<?> prefetch(CharSequence text, TextPaint paint) {
+        return precompute(text, paint, null);
+    }
+
+    /**
+     * Measures the text in the background, then calls back on the main thread.
+     * Must be called on the main thread, as the paint is copied here.
+     *
+     * @param text     the text to measure
+     * @param paint    the paint it will be drawn with; copied, so it can keep changing
+     * @param callback may be null
+     * @return the pending task
+     */
+    public Future<?> precompute(CharSequence text, TextPaint paint, final Callback callback) {
+        final String textCopy = text.toString();
+        final TextPaint paintCopy = new TextPaint(paint);
+        return executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                final TextMetricsCache.Entry entry = cache.get(textCopy, paintCopy);
+                if (callback == null || Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onPrecomputed(textCopy, entry);
+                    }
+                });
+            }
+        });
+    }
+}
@@ -0,0 +1,133 @@
+package org.rares.ratv.rotationaware.text;
+
+/**
+ * Mutable character buffer for text that changes many times a second,
+ * like counters. Updates copy characters in place and do not allocate
+ * unless the buffer has to grow. <br />
+ * Layouts built over this buffer draw its current content.
+ * Only {@link #toString()} and {@link #subSequence(int, int)} allocate.
+ */
+public class TickerText implements CharSequence {
+
+    private char[] chars;
+    private int length;
+
+    public TickerText() {
+        this(16);
+    }
+
+    /**
+     * @param capacity initial number of characters that fit without growing
+     */
+    public TickerText(int capacity) {
+        chars = new char[capacity];
+    }
+
+    /**
+     * @return true if the content changed
+     */
+    public boolean set(char[] source, int offset, int count) {
+        if (count == length && regionEquals(source, offset, count)) {
+            return false;
+        }
+        ensureCapacity(count);
+        System.arraycopy(source, offset, chars, 0, count);
+        length = count;
+        return true;
+    }
+
+    /**
+     * Writes the decimal representation of the value.
+     *
+     * @return true if the content changed
+     */
+    public boolean set(long value) {
+        // 19 digits and a sign
+        ensureCapacity(20);
+        boolean changed = false;
+        int count = value == 0 ? 1 : 0;
+        for (long rest = value; rest != 0; rest /= 10) {
+            count++;
+        }
+        if (value < 0) {
+            count++;
+        }
+        if (count != length) {
+            changed = true;
+            length = count;
+        }
+        int i = count - 1;
+        long rest = value;
+        do {
+            // works for Long.MIN_VALUE too, as the remainder keeps the sign
+            int digit = (int) (rest % 10);
+            char c = (char) ('0' + (digit < 0 ? -digit : digit));
+            if (chars[i] != c) {
+                chars[i] = c;
+                changed = true;
+            }
+            rest /= 10;
+            i--;
+        } while (rest != 0);
+        if (value < 0 && chars[0] != '-') {
+            chars[0] = '-';
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * @return true if the characters are the same as the given ones
+     */
+    public boolean contentEquals(CharSequence other) {
+        if (other == null || other.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (chars[i] != other.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", length: " + length);
+        }
+        return chars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new String(chars, start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+
+    private boolean regionEquals(char[] source, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            if (chars[i] != source[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (chars.length < capacity) {
+            char[] grown = new char[Math.max(capacity, 2 * chars.length)];
+            System.arraycopy(chars, 0, grown, 0, length);
+            chars = grown;
+        }
+    }
+}
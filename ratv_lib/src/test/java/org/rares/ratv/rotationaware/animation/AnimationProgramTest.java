@@ -0,0 +1,90 @@
+package org.rares.ratv.rotationaware.animation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Channel masks of {@link AnimationProgram}.
+ */
+public class AnimationProgramTest {
+
+    @Test
+    public void constantSpec_isEmpty() {
+        AnimationProgram program = new AnimationSpec.Builder()
+                .width(100, 100)
+                .textColor(0xFF000000, 0xFF000000)
+                .build()
+                .getProgram();
+
+        assertTrue(program.isEmpty());
+        assertEquals(0, program.getMask());
+        assertEquals(AnimationProgram.ALL_CHANNELS, program.getConstantMask());
+        assertFalse(program.touchesLayout());
+    }
+
+    @Test
+    public void mask_holdsChangingChannels() {
+        AnimationProgram program = new AnimationSpec.Builder()
+                .rotation(0, -90)
+                .width(400, 100)
+                .textSize(40, 40)
+                .build()
+                .getProgram();
+
+        int expected = 1 << AnimationSpec.CHANNEL_ROTATION | 1 << AnimationSpec.CHANNEL_WIDTH;
+        assertEquals(expected, program.getMask());
+        assertEquals(AnimationProgram.ALL_CHANNELS & ~expected, program.getConstantMask());
+        assertTrue(program.animates(AnimationSpec.CHANNEL_ROTATION));
+        assertTrue(program.animates(AnimationSpec.CHANNEL_WIDTH));
+        assertFalse(program.animates(AnimationSpec.CHANNEL_TEXT_SIZE));
+        assertTrue(program.touchesLayout());
+    }
+
+    @Test
+    public void colorsOnly_doNotTouchLayout() {
+        AnimationProgram program = new AnimationSpec.Builder()
+                .backgroundColor(0xFFFFFFFF, 0xFF000000)
+                .shadowColor(0, 0xFF000000)
+                .build()
+                .getProgram();
+
+        assertFalse(program.touchesLayout());
+        assertEquals(1 << AnimationSpec.CHANNEL_BACKGROUND_COLOR | 1 << AnimationSpec.CHANNEL_SHADOW_COLOR,
+                program.getMask());
+    }
+
+    @Test
+    public void masks_coverEveryChannel() {
+        assertEquals(0xFFF, AnimationProgram.ALL_CHANNELS);
+        assertEquals(AnimationProgram.LAYOUT_CHANNELS, AnimationProgram.ALL_CHANNELS & AnimationProgram.LAYOUT_CHANNELS);
+        assertEquals(6, Integer.bitCount(AnimationProgram.LAYOUT_CHANNELS));
+        assertEquals(AnimationSpec.CHANNEL_COUNT, AnimationProgram.PROPERTY_NAMES.length);
+    }
+
+    @Test
+    public void program_isCachedPerSpec() {
+        AnimationSpec spec = new AnimationSpec.Builder().rotation(0, 90).build();
+
+        assertSame(spec.getProgram(), spec.getProgram());
+        assertSame(spec, spec.getProgram().getSpec());
+    }
+
+    @Test
+    public void evaluate_leavesConstantChannelsUntouched() {
+        AnimationProgram program = new AnimationSpec.Builder()
+                .width(0, 100)
+                .height(50, 50)
+                .build()
+                .getProgram();
+        RotationFrame frame = new RotationFrame();
+        frame.height = -1;
+        frame.textSize = -1;
+
+        program.evaluate(frame, false, 0.5F);
+
+        assertEquals(50, frame.width);
+        assertEquals(-1, frame.height);
+        assertEquals(-1, frame.textSize);
+    }
+}
@@ -0,0 +1,92 @@
+package org.rares.ratv.rotationaware.animation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Equality, interning and conversions of {@link AnimationSpec}.
+ */
+public class AnimationSpecTest {
+
+    private static AnimationSpec.Builder flip() {
+        return new AnimationSpec.Builder()
+                .rotation(0, -90)
+                .width(400, 100)
+                .height(100, 400)
+                .textColor(0xFF000000, 0xFFFFFFFF)
+                .textSize(40, 20);
+    }
+
+    @Test
+    public void equalValues_equalSpecs() {
+        AnimationSpec a = flip().build();
+        AnimationSpec b = flip().build();
+
+        assertNotSame(a, b);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+    }
+
+    @Test
+    public void differentValues_differentSpecs() {
+        AnimationSpec a = flip().build();
+        AnimationSpec b = flip().marginLeft(0, 1).build();
+        AnimationSpec swapped = flip().width(100, 400).build();
+
+        assertNotEquals(a, b);
+        assertNotEquals(a, swapped);
+        assertNotEquals(a, null);
+    }
+
+    @Test
+    public void intern_returnsCanonicalInstance() {
+        AnimationSpec a = flip().shadowRadius(1, 7).build().intern();
+        AnimationSpec b = flip().shadowRadius(1, 7).build();
+
+        assertSame(a, b.intern());
+        assertSame(a, a.intern());
+        assertNotSame(a, flip().shadowRadius(1, 8).build().intern());
+    }
+
+    @Test
+    public void builder_isCopiedOnBuild() {
+        AnimationSpec.Builder builder = flip();
+        AnimationSpec before = builder.build();
+        builder.width(1, 2);
+
+        assertEquals(400, before.getMin(AnimationSpec.CHANNEL_WIDTH));
+        assertEquals(100, before.getMax(AnimationSpec.CHANNEL_WIDTH));
+    }
+
+    @Test
+    public void unsetChannels_areZero() {
+        AnimationSpec spec = flip().build();
+
+        assertEquals(0, spec.getMin(AnimationSpec.CHANNEL_MARGIN_TOP));
+        assertEquals(0, spec.getMax(AnimationSpec.CHANNEL_SHADOW_COLOR));
+    }
+
+    @Test
+    public void getEnd_followsDirection() {
+        AnimationSpec spec = flip().build();
+
+        assertEquals(-90, spec.getEnd(AnimationSpec.CHANNEL_ROTATION, false));
+        assertEquals(0, spec.getEnd(AnimationSpec.CHANNEL_ROTATION, true));
+    }
+
+    @Test
+    public void animationDTO_roundTrip() {
+        AnimationSpec spec = flip()
+                .backgroundColor(0x88FFFFFF, 0xFF303030)
+                .marginLeft(1, 2)
+                .marginTop(3, 4)
+                .marginRight(5, 6)
+                .marginBottom(7, 8)
+                .shadowRadius(9, 10)
+                .shadowColor(0x11111111, 0x22222222)
+                .build();
+
+        assertEquals(spec, AnimationSpec.from(spec.toAnimationDTO()));
+    }
+}
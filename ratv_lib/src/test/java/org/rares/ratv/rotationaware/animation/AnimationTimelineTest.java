@@ -0,0 +1,136 @@
+package org.rares.ratv.rotationaware.animation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Keyframe lookup of {@link AnimationTimeline}, through its segment cursors and its binary search.
+ */
+public class AnimationTimelineTest {
+
+    private static final int WIDTH = AnimationSpec.CHANNEL_WIDTH;
+
+    private static AnimationTimeline widthTimeline() {
+        return new AnimationTimeline.Builder()
+                .keyframe(WIDTH, 0, 0)
+                .keyframe(WIDTH, 100, 100)
+                .keyframe(WIDTH, 200, 300)
+                .keyframe(WIDTH, 400, 300)
+                .build();
+    }
+
+    private static int widthAt(AnimationTimeline timeline, long time, int[] cursors) {
+        RotationFrame frame = new RotationFrame();
+        timeline.evaluate(frame, time, cursors);
+        return frame.width;
+    }
+
+    @Test
+    public void evaluate_clampsOutsideKeyframes() {
+        AnimationTimeline timeline = widthTimeline();
+        int[] cursors = AnimationTimeline.newCursors();
+
+        assertEquals(0, widthAt(timeline, -10, cursors));
+        assertEquals(0, widthAt(timeline, 0, cursors));
+        assertEquals(300, widthAt(timeline, 400, cursors));
+        assertEquals(300, widthAt(timeline, 500, cursors));
+    }
+
+    @Test
+    public void evaluate_movesCursorForward() {
+        AnimationTimeline timeline = widthTimeline();
+        int[] cursors = AnimationTimeline.newCursors();
+
+        assertEquals(50, widthAt(timeline, 50, cursors));
+        assertEquals(1, cursors[WIDTH]);
+        assertEquals(200, widthAt(timeline, 150, cursors));
+        assertEquals(2, cursors[WIDTH]);
+        assertEquals(300, widthAt(timeline, 300, cursors));
+        assertEquals(3, cursors[WIDTH]);
+    }
+
+    @Test
+    public void evaluate_atKeyframeTime() {
+        AnimationTimeline timeline = widthTimeline();
+
+        assertEquals(100, widthAt(timeline, 100, AnimationTimeline.newCursors()));
+        assertEquals(300, widthAt(timeline, 200, AnimationTimeline.newCursors()));
+    }
+
+    @Test
+    public void evaluate_searchesWhenSeekingBack() {
+        AnimationTimeline timeline = widthTimeline();
+        int[] cursors = AnimationTimeline.newCursors();
+
+        assertEquals(300, widthAt(timeline, 350, cursors));
+        assertEquals(50, widthAt(timeline, 50, cursors));
+        assertEquals(1, cursors[WIDTH]);
+    }
+
+    @Test
+    public void evaluate_ignoresStaleCursors() {
+        AnimationTimeline timeline = widthTimeline();
+        int[] cursors = AnimationTimeline.newCursors();
+        cursors[WIDTH] = 42;
+
+        assertEquals(200, widthAt(timeline, 150, cursors));
+        assertEquals(2, cursors[WIDTH]);
+    }
+
+    @Test
+    public void evaluate_jumpsAtSharedKeyframeTime() {
+        AnimationTimeline timeline = new AnimationTimeline.Builder()
+                .keyframe(WIDTH, 0, 0)
+                .keyframe(WIDTH, 100, 100)
+                .keyframe(WIDTH, 100, 500)
+                .keyframe(WIDTH, 200, 600)
+                .build();
+        int[] cursors = AnimationTimeline.newCursors();
+
+        assertEquals(99, widthAt(timeline, 99, cursors));
+        assertEquals(500, widthAt(timeline, 100, cursors));
+        assertEquals(550, widthAt(timeline, 150, cursors));
+        assertEquals(500, widthAt(timeline, 100, AnimationTimeline.newCursors()));
+    }
+
+    @Test
+    public void evaluate_rotationIsNotRounded() {
+        AnimationTimeline timeline = new AnimationTimeline.Builder()
+                .keyframe(AnimationSpec.CHANNEL_ROTATION, 0, 0)
+                .keyframe(AnimationSpec.CHANNEL_ROTATION, 100, -90)
+                .build();
+        RotationFrame frame = new RotationFrame();
+
+        timeline.evaluate(frame, 25, AnimationTimeline.newCursors());
+
+        assertEquals(-22.5F, frame.rotation, 0.001F);
+    }
+
+    @Test
+    public void evaluate_leavesOtherChannels() {
+        RotationFrame frame = new RotationFrame();
+        frame.height = 7;
+
+        widthTimeline().evaluate(frame, 50, AnimationTimeline.newCursors());
+
+        assertEquals(7, frame.height);
+    }
+
+    @Test
+    public void keyframes_sortedPerChannel() {
+        AnimationTimeline timeline = new AnimationTimeline.Builder()
+                .keyframe(WIDTH, 200, 300)
+                .keyframe(AnimationSpec.CHANNEL_TEXT_SIZE, 50, 20)
+                .keyframe(WIDTH, 0, 0)
+                .keyframe(WIDTH, 100, 100)
+                .build();
+
+        assertEquals(3, timeline.getKeyframeCount(WIDTH));
+        assertEquals(1, timeline.getKeyframeCount(AnimationSpec.CHANNEL_TEXT_SIZE));
+        assertEquals(0, timeline.getKeyframeCount(AnimationSpec.CHANNEL_HEIGHT));
+        assertEquals(1 << WIDTH | 1 << AnimationSpec.CHANNEL_TEXT_SIZE, timeline.getMask());
+        assertEquals(200, timeline.getDuration());
+        assertEquals(50, widthAt(timeline, 50, AnimationTimeline.newCursors()));
+    }
+}
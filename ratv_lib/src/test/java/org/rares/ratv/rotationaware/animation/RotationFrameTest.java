@@ -0,0 +1,58 @@
+package org.rares.ratv.rotationaware.animation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Interpolation helpers of {@link RotationFrame}.
+ */
+public class RotationFrameTest {
+
+    @Test
+    public void lerpColor_sameColor() {
+        assertEquals(0x80FF00FF, RotationFrame.lerpColor(0x80FF00FF, 0x80FF00FF, 0.3F));
+    }
+
+    @Test
+    public void lerpColor_ends() {
+        assertEquals(0xFF102030, RotationFrame.lerpColor(0xFF102030, 0x00F0E0D0, 0F));
+        assertEquals(0x00F0E0D0, RotationFrame.lerpColor(0xFF102030, 0x00F0E0D0, 1F));
+    }
+
+    @Test
+    public void lerpColor_perChannel() {
+        assertEquals(0xFF7F7F7F, RotationFrame.lerpColor(0xFF000000, 0xFFFFFFFF, 0.5F));
+        assertEquals(0x7F7F007F, RotationFrame.lerpColor(0x00FF0000, 0xFF0000FF, 0.5F));
+    }
+
+    @Test
+    public void lerpColor_highAlphaKeepsItsSign() {
+        assertEquals(0xFF000000, RotationFrame.lerpColor(0x80000000, 0xFF000000, 1F));
+        assertEquals(0xBF000000, RotationFrame.lerpColor(0x80000000, 0xFF000000, 0.5F));
+    }
+
+    @Test
+    public void lerpColor_overshootIsClamped() {
+        assertEquals(0xFFFFFFFF, RotationFrame.lerpColor(0x00000000, 0xFFFFFFFF, 1.2F));
+        assertEquals(0x00000000, RotationFrame.lerpColor(0x00000000, 0xFFFFFFFF, -0.2F));
+    }
+
+    @Test
+    public void lerp_roundsLikeIntEvaluator() {
+        assertEquals(50, RotationFrame.lerp(0, 100, 0.5F));
+        assertEquals(33, RotationFrame.lerp(0, 100, 0.339F));
+        assertEquals(-45, RotationFrame.lerp(0, -90, 0.5F));
+    }
+
+    @Test
+    public void evaluate_reverse() {
+        AnimationSpec spec = new AnimationSpec.Builder().width(100, 300).build();
+        RotationFrame frame = new RotationFrame();
+
+        frame.evaluate(spec, false, 0.25F);
+        assertEquals(150, frame.width);
+        frame.evaluate(spec, true, 0.25F);
+        assertEquals(250, frame.width);
+    }
+}
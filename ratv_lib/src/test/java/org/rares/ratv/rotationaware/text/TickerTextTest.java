@@ -0,0 +1,105 @@
+package org.rares.ratv.rotationaware.text;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Number formatting and change reporting of {@link TickerText}.
+ */
+public class TickerTextTest {
+
+    @Test
+    public void set_zero() {
+        TickerText text = new TickerText();
+
+        assertTrue(text.set(0));
+        assertEquals("0", text.toString());
+        assertFalse(text.set(0));
+    }
+
+    @Test
+    public void set_positiveAndNegative() {
+        TickerText text = new TickerText();
+
+        text.set(12345);
+        assertEquals("12345", text.toString());
+        text.set(-42);
+        assertEquals("-42", text.toString());
+    }
+
+    @Test
+    public void set_longLimits() {
+        TickerText text = new TickerText();
+
+        text.set(Long.MIN_VALUE);
+        assertEquals(String.valueOf(Long.MIN_VALUE), text.toString());
+        text.set(Long.MAX_VALUE);
+        assertEquals(String.valueOf(Long.MAX_VALUE), text.toString());
+    }
+
+    @Test
+    public void set_fewerDigits() {
+        TickerText text = new TickerText();
+
+        text.set(1000);
+        assertTrue(text.set(7));
+        assertEquals("7", text.toString());
+        assertEquals(1, text.length());
+    }
+
+    @Test
+    public void set_signChanges() {
+        TickerText text = new TickerText();
+
+        text.set(-5);
+        assertTrue(text.set(5));
+        assertEquals("5", text.toString());
+        assertTrue(text.set(-5));
+        assertEquals("-5", text.toString());
+        text.set(-10);
+        assertTrue(text.set(10));
+        assertEquals("10", text.toString());
+    }
+
+    @Test
+    public void set_sameLengthReportsChange() {
+        TickerText text = new TickerText();
+
+        text.set(123);
+        assertTrue(text.set(124));
+        assertEquals("124", text.toString());
+        assertFalse(text.set(124));
+    }
+
+    @Test
+    public void set_growsSmallBuffer() {
+        TickerText text = new TickerText(2);
+
+        text.set(-1234567890L);
+        assertEquals("-1234567890", text.toString());
+        assertTrue(text.set("abc".toCharArray(), 0, 3));
+        assertEquals("abc", text.toString());
+    }
+
+    @Test
+    public void setChars_reportsChange() {
+        TickerText text = new TickerText();
+        char[] source = "xabcx".toCharArray();
+
+        assertTrue(text.set(source, 1, 3));
+        assertFalse(text.set(source, 1, 3));
+        assertTrue(text.contentEquals("abc"));
+        assertFalse(text.contentEquals("abd"));
+        assertFalse(text.contentEquals("ab"));
+        assertFalse(text.contentEquals(null));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void charAt_pastLength() {
+        TickerText text = new TickerText();
+        text.set(42);
+
+        text.charAt(2);
+    }
+}